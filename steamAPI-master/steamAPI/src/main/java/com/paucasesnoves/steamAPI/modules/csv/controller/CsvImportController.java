@@ -1,36 +1,162 @@
 package com.paucasesnoves.steamAPI.modules.csv.controller;
 
 import com.paucasesnoves.steamAPI.modules.csv.dto.CsvImportResultDto;
+import com.paucasesnoves.steamAPI.modules.csv.dto.ImportJobDto;
 import com.paucasesnoves.steamAPI.modules.csv.service.CsvImportService;
+import com.paucasesnoves.steamAPI.modules.csv.service.ImportJob;
+import com.paucasesnoves.steamAPI.modules.csv.service.ImportJobService;
+import com.paucasesnoves.steamAPI.utils.CsvUtils;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
 @RestController
 public class CsvImportController {
     private CsvImportService csvImportService;
+    private ImportJobService importJobService;
 
 
     @Autowired
-    public CsvImportController(CsvImportService csvImportService) {
+    public CsvImportController(CsvImportService csvImportService, ImportJobService importJobService) {
         this.csvImportService = csvImportService;
+        this.importJobService = importJobService;
     }
 
+    /**
+     * Importación síncrona: bloquea la petición hasta el final. Para importaciones
+     * largas usar POST /import/jobs. Corre como un job más, así que 409 si ya hay uno
+     * activo (un reintento del cliente no lanza una segunda importación).
+     */
     @GetMapping("/import")
-    public CsvImportResultDto importCsv() {
+    public ResponseEntity<CsvImportResultDto> importCsv() {
+        ImportJob job;
+        try {
+            job = importJobService.runNow(CsvImportService.ALL_DATASETS);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        if (job.getResult() != null) {
+            return ResponseEntity.ok(job.getResult());
+        }
+        // Importación fallida: el error ya lo ha registrado ImportJobService
+        CsvImportResultDto result = new CsvImportResultDto();
+        result.setStatus("ERROR: " + job.getError());
+        result.setImportedGames(0);
+        result.setDevelopers(0);
+        result.setPublishers(0);
+        result.setGenres(0);
+        result.setTags(0);
+        result.setSkippedLines(0);
+        result.setDurationSeconds(0);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Validación en seco (síncrona): parsea y valida los archivos como una importación
+     * real pero sin tocar la BD. El resultado trae, por dataset, cuántas filas se crearían
+     * y cuántas se saltarían y por qué. 400 si el dataset no existe.
+     */
+    @GetMapping("/import/validate")
+    public ResponseEntity<CsvImportResultDto> validateCsv(@RequestParam(defaultValue = CsvImportService.ALL_DATASETS) String dataset) {
+        try {
+            return ResponseEntity.ok(csvImportService.validateDataset(dataset));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // =================================================================
+    // JOBS ASÍNCRONOS
+    // =================================================================
+
+    /**
+     * Lanza una importación en segundo plano y devuelve el job al momento (202).
+     * Con dryRun=true solo se validan los archivos (ver GET /import/validate).
+     * 409 si ya hay un job activo para el dataset, 400 si el dataset no existe.
+     */
+    @PostMapping("/import/jobs")
+    public ResponseEntity<ImportJobDto> submitJob(@RequestParam(defaultValue = CsvImportService.ALL_DATASETS) String dataset,
+                                                  @RequestParam(defaultValue = "false") boolean dryRun) {
+        try {
+            ImportJob job = importJobService.submit(dataset, dryRun);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job.toDto());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @GetMapping("/import/jobs")
+    public List<ImportJobDto> listJobs() {
+        return importJobService.findAll().stream().map(ImportJob::toDto).toList();
+    }
+
+    @GetMapping("/import/jobs/{id}")
+    public ResponseEntity<ImportJobDto> getJob(@PathVariable String id) {
+        return importJobService.find(id)
+                .map(job -> ResponseEntity.ok(job.toDto()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Progreso en vivo del job como Server-Sent Events (eventos "progress" y "finished").
+     */
+    @GetMapping(value = "/import/jobs/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamJob(@PathVariable String id) {
+        return importJobService.find(id)
+                .map(job -> ResponseEntity.ok(importJobService.stream(job)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/import/jobs/{id}")
+    public ResponseEntity<ImportJobDto> cancelJob(@PathVariable String id) {
+        return importJobService.cancel(id)
+                .map(job -> ResponseEntity.status(HttpStatus.ACCEPTED).body(job.toDto()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // =================================================================
+    // SUBIDA DE ARCHIVOS
+    // =================================================================
+
+    /**
+     * Importa un CSV enviado en el cuerpo (octet-stream, text/csv o multipart/form-data),
+     * opcionalmente comprimido con Content-Encoding gzip o zstd. El cuerpo se lee en
+     * streaming sin guardarse en memoria ni en disco y la respuesta llega al terminar;
+     * mientras tanto el job se puede seguir por SSE como cualquier otro. Con dryRun=true
+     * el archivo solo se valida: sirve para revisar un volcado antes de importarlo.
+     * 400 si el dataset no existe o es "all", 409 si ya hay un job activo para el dataset,
+     * 415 si la codificación no está soportada.
+     */
+    @PostMapping(value = "/import/{dataset}/upload",
+            consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, "text/csv", MediaType.MULTIPART_FORM_DATA_VALUE})
+    public ResponseEntity<ImportJobDto> upload(@PathVariable String dataset,
+                                               @RequestParam(defaultValue = "false") boolean dryRun,
+                                               HttpServletRequest request) throws IOException {
+        String contentEncoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (contentEncoding != null
+                && !CsvUtils.SUPPORTED_CONTENT_ENCODINGS.contains(contentEncoding.trim().toLowerCase(Locale.ROOT))) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build();
+        }
+        CsvImportService.Upload upload = new CsvImportService.Upload(request.getInputStream(),
+                request.getContentLengthLong(), request.getContentType(), contentEncoding);
         try {
-            return csvImportService.importAllCsv();
-        } catch (Exception e) {
-            e.printStackTrace();
-            CsvImportResultDto result = new CsvImportResultDto();
-            result.setStatus("ERROR: " + e.getMessage());
-            result.setImportedGames(0);
-            result.setDevelopers(0);
-            result.setPublishers(0);
-            result.setGenres(0);
-            result.setTags(0);
-            result.setSkippedLines(0);
-            result.setDurationSeconds(0);
-            return result;
+            ImportJob job = importJobService.runUpload(dataset, upload, dryRun);
+            return ResponseEntity.ok(job.toDto());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
     }
-}
\ No newline at end of file
+}
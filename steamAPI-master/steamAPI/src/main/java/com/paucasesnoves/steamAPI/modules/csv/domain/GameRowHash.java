@@ -0,0 +1,33 @@
+package com.paucasesnoves.steamAPI.modules.csv.domain;
+
+import jakarta.persistence.*;
+
+/**
+ * Hash de 64 bits de la fila de steam.csv con la que se importó cada juego.
+ * Lo usa la importación delta para escribir solo los juegos que han cambiado.
+ * Se lee y escribe por JDBC (ver GameRowHashStore); la entidad solo define la tabla.
+ */
+@Entity
+@Table(name = "game_row_hash")
+public class GameRowHash {
+
+    @Id
+    @Column(name = "app_id")
+    private Long appId;
+
+    @Column(name = "row_hash", nullable = false)
+    private long rowHash;
+
+    public GameRowHash() {}
+
+    public GameRowHash(Long appId, long rowHash) {
+        this.appId = appId;
+        this.rowHash = rowHash;
+    }
+
+    public Long getAppId() { return appId; }
+    public void setAppId(Long appId) { this.appId = appId; }
+
+    public long getRowHash() { return rowHash; }
+    public void setRowHash(long rowHash) { this.rowHash = rowHash; }
+}
@@ -0,0 +1,79 @@
+package com.paucasesnoves.steamAPI.modules.csv.domain;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Último lote confirmado de un importador: permite reanudar una importación
+ * interrumpida desde el byte siguiente en lugar de releer el archivo entero.
+ */
+@Entity
+@Table(name = "import_checkpoint")
+public class ImportCheckpoint {
+
+    @Id
+    @Column(length = 50)
+    private String importer;
+
+    // Huella del archivo al guardar el checkpoint (tamaño, fecha y hash de los primeros
+    // 64 KB); si cambia cualquiera, el checkpoint no vale
+    @Column(nullable = false)
+    private long fileSize;
+
+    @Column(nullable = false)
+    private long lastModified;
+
+    @Column(nullable = false)
+    private long headHash;
+
+    @Column(nullable = false)
+    private long byteOffset;
+
+    @Column(nullable = false)
+    private int lineNumber;
+
+    @Column(nullable = false)
+    private int batchNumber;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    public ImportCheckpoint() {}
+
+    public ImportCheckpoint(String importer, long fileSize, long lastModified, long headHash,
+                            long byteOffset, int lineNumber, int batchNumber) {
+        this.importer = importer;
+        this.fileSize = fileSize;
+        this.lastModified = lastModified;
+        this.headHash = headHash;
+        this.byteOffset = byteOffset;
+        this.lineNumber = lineNumber;
+        this.batchNumber = batchNumber;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public String getImporter() { return importer; }
+    public void setImporter(String importer) { this.importer = importer; }
+
+    public long getFileSize() { return fileSize; }
+    public void setFileSize(long fileSize) { this.fileSize = fileSize; }
+
+    public long getLastModified() { return lastModified; }
+    public void setLastModified(long lastModified) { this.lastModified = lastModified; }
+
+    public long getHeadHash() { return headHash; }
+    public void setHeadHash(long headHash) { this.headHash = headHash; }
+
+    public long getByteOffset() { return byteOffset; }
+    public void setByteOffset(long byteOffset) { this.byteOffset = byteOffset; }
+
+    public int getLineNumber() { return lineNumber; }
+    public void setLineNumber(int lineNumber) { this.lineNumber = lineNumber; }
+
+    public int getBatchNumber() { return batchNumber; }
+    public void setBatchNumber(int batchNumber) { this.batchNumber = batchNumber; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -1,5 +1,7 @@
 package com.paucasesnoves.steamAPI.modules.csv.dto;
 
+import java.util.Map;
+
 public class CsvImportResultDto {
 
     private String status;
@@ -10,6 +12,9 @@ public class CsvImportResultDto {
     private int tags;
     private int skippedLines;
     private double durationSeconds;
+    private boolean dryRun;
+    // Estadísticas de cada dataset importado, con los saltados por motivo
+    private Map<String, CsvImportStatisticsDto> statistics;
 
     public CsvImportResultDto() {}
 
@@ -89,5 +94,20 @@ public class CsvImportResultDto {
     public void setTags(int tags) {
         this.tags = tags;
     }
-}
 
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    public Map<String, CsvImportStatisticsDto> getStatistics() {
+        return statistics;
+    }
+
+    public void setStatistics(Map<String, CsvImportStatisticsDto> statistics) {
+        this.statistics = statistics;
+    }
+}
@@ -1,53 +1,141 @@
 package com.paucasesnoves.steamAPI.modules.csv.dto;
 
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de una importación. Son LongAdder porque los importadores con parseo en
+ * paralelo los incrementan desde varios hilos; los getters devuelven la suma actual.
+ * Si hay un {@link ImportStatisticsListener} asociado (los medidores de Micrometer del
+ * importador), cada incremento se le notifica también.
+ */
 public class CsvImportStatisticsDto {
-    private int processed;
-    private int created;
-    private int skipped;
-    private int developersCreated;
-    private int publishersCreated;
-    private int genresCreated;
-    private int platformsCreated;
-    private int categoriesCreated;
-    private int tagsCreated;
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder updated = new LongAdder();
+    private final LongAdder deleted = new LongAdder();
+    private final LongAdder developersCreated = new LongAdder();
+    private final LongAdder publishersCreated = new LongAdder();
+    private final LongAdder genresCreated = new LongAdder();
+    private final LongAdder platformsCreated = new LongAdder();
+    private final LongAdder categoriesCreated = new LongAdder();
+    private final LongAdder tagsCreated = new LongAdder();
+    private final Map<SkipReason, LongAdder> skippedByReason = new EnumMap<>(SkipReason.class);
+
+    private volatile ImportStatisticsListener listener;
+    private long flushedRow; // última fila procesada cubierta por un lote escrito (eventos JFR)
 
     // Constructor vacío
-    public CsvImportStatisticsDto() {}
+    public CsvImportStatisticsDto() {
+        for (SkipReason reason : SkipReason.values()) {
+            skippedByReason.put(reason, new LongAdder());
+        }
+    }
+
+    /**
+     * Notifica los incrementos siguientes a {@code listener}.
+     */
+    public void attachListener(ImportStatisticsListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Marca como escritas las filas hasta {@code row} y devuelve hasta dónde llegaba el lote anterior.
+     */
+    public long advanceFlushedRow(long row) {
+        long previous = flushedRow;
+        flushedRow = row;
+        return previous;
+    }
 
     // Getters y Setters
-    public int getProcessed() { return processed; }
-    public void setProcessed(int processed) { this.processed = processed; }
-    public void incrementProcessed() { this.processed++; }
-
-    public int getCreated() { return created; }
-    public void setCreated(int created) { this.created = created; }
-    public void incrementCreated() { this.created++; }
-
-    public int getSkipped() { return skipped; }
-    public void setSkipped(int skipped) { this.skipped = skipped; }
-    public void incrementSkipped() { this.skipped++; }
-
-    public int getDevelopersCreated() { return developersCreated; }
-    public void setDevelopersCreated(int developersCreated) { this.developersCreated = developersCreated; }
-    public void incrementDevelopersCreated() { this.developersCreated++; }
-
-    public int getPublishersCreated() { return publishersCreated; }
-    public void setPublishersCreated(int publishersCreated) { this.publishersCreated = publishersCreated; }
-    public void incrementPublishersCreated() { this.publishersCreated++; }
-
-    public int getGenresCreated() { return genresCreated; }
-    public void setGenresCreated(int genresCreated) { this.genresCreated = genresCreated; }
-    public void incrementGenresCreated() { this.genresCreated++; }
-
-    public int getPlatformsCreated() { return platformsCreated; }
-    public void setPlatformsCreated(int platformsCreated) { this.platformsCreated = platformsCreated; }
-    public void incrementPlatformsCreated() { this.platformsCreated++; }
-
-    public int getCategoriesCreated() { return categoriesCreated; }
-    public void setCategoriesCreated(int categoriesCreated) { this.categoriesCreated = categoriesCreated; }
-    public void incrementCategoriesCreated() { this.categoriesCreated++; }
-
-    public int getTagsCreated() { return tagsCreated; }
-    public void setTagsCreated(int tagsCreated) { this.tagsCreated = tagsCreated; }
-    public void incrementTagsCreated() { this.tagsCreated++; }
-}
\ No newline at end of file
+    public int getProcessed() { return processed.intValue(); }
+    public void setProcessed(int processed) { set(this.processed, processed); }
+    public void incrementProcessed() {
+        processed.increment();
+        ImportStatisticsListener l = listener;
+        if (l != null) {
+            l.rowParsed();
+        }
+    }
+
+    public int getCreated() { return created.intValue(); }
+    public void setCreated(int created) { set(this.created, created); }
+    public void incrementCreated() { created.increment(); }
+    public void addCreated(int delta) { created.add(delta); }
+
+    public int getSkipped() { return skipped.intValue(); }
+    public void incrementSkipped(SkipReason reason) { addSkipped(reason, 1); }
+    public void addSkipped(SkipReason reason, int count) {
+        if (count <= 0) {
+            return;
+        }
+        skipped.add(count);
+        skippedByReason.get(reason).add(count);
+        ImportStatisticsListener l = listener;
+        if (l != null) {
+            l.rowsSkipped(reason, count);
+        }
+    }
+
+    /**
+     * Saltados por motivo (solo los que tienen alguno), con el tag de métricas como clave.
+     */
+    public Map<String, Integer> getSkippedByReason() {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        skippedByReason.forEach((reason, count) -> {
+            int value = count.intValue();
+            if (value > 0) {
+                result.put(reason.getTag(), value);
+            }
+        });
+        return result;
+    }
+
+    public int getUpdated() { return updated.intValue(); }
+    public void setUpdated(int updated) { set(this.updated, updated); }
+    public void incrementUpdated() { updated.increment(); }
+    public void addUpdated(int delta) { updated.add(delta); }
+
+    public int getDeleted() { return deleted.intValue(); }
+    public void setDeleted(int deleted) { set(this.deleted, deleted); }
+    public void addDeleted(int delta) { deleted.add(delta); }
+
+    public int getDevelopersCreated() { return developersCreated.intValue(); }
+    public void setDevelopersCreated(int developersCreated) { set(this.developersCreated, developersCreated); }
+    public void incrementDevelopersCreated() { developersCreated.increment(); }
+    public void addDevelopersCreated(int delta) { developersCreated.add(delta); }
+
+    public int getPublishersCreated() { return publishersCreated.intValue(); }
+    public void setPublishersCreated(int publishersCreated) { set(this.publishersCreated, publishersCreated); }
+    public void incrementPublishersCreated() { publishersCreated.increment(); }
+    public void addPublishersCreated(int delta) { publishersCreated.add(delta); }
+
+    public int getGenresCreated() { return genresCreated.intValue(); }
+    public void setGenresCreated(int genresCreated) { set(this.genresCreated, genresCreated); }
+    public void incrementGenresCreated() { genresCreated.increment(); }
+    public void addGenresCreated(int delta) { genresCreated.add(delta); }
+
+    public int getPlatformsCreated() { return platformsCreated.intValue(); }
+    public void setPlatformsCreated(int platformsCreated) { set(this.platformsCreated, platformsCreated); }
+    public void incrementPlatformsCreated() { platformsCreated.increment(); }
+    public void addPlatformsCreated(int delta) { platformsCreated.add(delta); }
+
+    public int getCategoriesCreated() { return categoriesCreated.intValue(); }
+    public void setCategoriesCreated(int categoriesCreated) { set(this.categoriesCreated, categoriesCreated); }
+    public void incrementCategoriesCreated() { categoriesCreated.increment(); }
+    public void addCategoriesCreated(int delta) { categoriesCreated.add(delta); }
+
+    public int getTagsCreated() { return tagsCreated.intValue(); }
+    public void setTagsCreated(int tagsCreated) { set(this.tagsCreated, tagsCreated); }
+    public void incrementTagsCreated() { tagsCreated.increment(); }
+
+    // Los setters no son atómicos respecto a incrementos concurrentes: usar add* para ajustes
+    private static void set(LongAdder adder, int value) {
+        adder.reset();
+        adder.add(value);
+    }
+}
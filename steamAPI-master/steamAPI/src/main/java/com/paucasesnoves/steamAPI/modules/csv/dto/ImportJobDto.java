@@ -0,0 +1,108 @@
+package com.paucasesnoves.steamAPI.modules.csv.dto;
+
+import java.util.List;
+
+public class ImportJobDto {
+
+    private String id;
+    private String dataset;
+    private boolean dryRun;
+    private String status;
+    private boolean cancelRequested;
+    private String submittedAt;
+    private String startedAt;
+    private String finishedAt;
+    private List<ImporterProgressDto> importers;
+    private CsvImportResultDto result;
+    private String error;
+
+    public ImportJobDto() {}
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getDataset() {
+        return dataset;
+    }
+
+    public void setDataset(String dataset) {
+        this.dataset = dataset;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public void setCancelRequested(boolean cancelRequested) {
+        this.cancelRequested = cancelRequested;
+    }
+
+    public String getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public void setSubmittedAt(String submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+
+    public String getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(String startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public String getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(String finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public List<ImporterProgressDto> getImporters() {
+        return importers;
+    }
+
+    public void setImporters(List<ImporterProgressDto> importers) {
+        this.importers = importers;
+    }
+
+    public CsvImportResultDto getResult() {
+        return result;
+    }
+
+    public void setResult(CsvImportResultDto result) {
+        this.result = result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,12 @@
+package com.paucasesnoves.steamAPI.modules.csv.dto;
+
+/**
+ * Recibe los incrementos de un {@link CsvImportStatisticsDto} a medida que ocurren
+ * (por ejemplo, para publicarlos como métricas). Se llama desde varios hilos.
+ */
+public interface ImportStatisticsListener {
+
+    void rowParsed();
+
+    void rowsSkipped(SkipReason reason, int count);
+}
@@ -0,0 +1,124 @@
+package com.paucasesnoves.steamAPI.modules.csv.dto;
+
+public class ImporterProgressDto {
+
+    private String importer;
+    private String status;
+    private int processed;
+    private int created;
+    private int skipped;
+    private double rowsPerSecond;
+    private long batchesFlushed;
+    private double lastBatchMillis;
+    private long bytesRead;
+    private long totalBytes;
+    private Double percent;
+    private Double etaSeconds;
+    private double elapsedSeconds;
+
+    public ImporterProgressDto() {}
+
+    public String getImporter() {
+        return importer;
+    }
+
+    public void setImporter(String importer) {
+        this.importer = importer;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(int processed) {
+        this.processed = processed;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(int skipped) {
+        this.skipped = skipped;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public long getBatchesFlushed() {
+        return batchesFlushed;
+    }
+
+    public void setBatchesFlushed(long batchesFlushed) {
+        this.batchesFlushed = batchesFlushed;
+    }
+
+    public double getLastBatchMillis() {
+        return lastBatchMillis;
+    }
+
+    public void setLastBatchMillis(double lastBatchMillis) {
+        this.lastBatchMillis = lastBatchMillis;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public void setBytesRead(long bytesRead) {
+        this.bytesRead = bytesRead;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    public Double getPercent() {
+        return percent;
+    }
+
+    public void setPercent(Double percent) {
+        this.percent = percent;
+    }
+
+    public Double getEtaSeconds() {
+        return etaSeconds;
+    }
+
+    public void setEtaSeconds(Double etaSeconds) {
+        this.etaSeconds = etaSeconds;
+    }
+
+    public double getElapsedSeconds() {
+        return elapsedSeconds;
+    }
+
+    public void setElapsedSeconds(double elapsedSeconds) {
+        this.elapsedSeconds = elapsedSeconds;
+    }
+}
@@ -0,0 +1,32 @@
+package com.paucasesnoves.steamAPI.modules.csv.dto;
+
+/**
+ * Motivo por el que un registro del CSV no acaba escrito en la BD.
+ * El tag es el valor que se publica en las métricas (steam.import.rows.skipped).
+ */
+public enum SkipReason {
+    /** Faltan columnas o la fila no se puede leer. */
+    MALFORMED_ROW("malformed_row"),
+    /** appId vacío o no numérico. */
+    INVALID_APP_ID("invalid_app_id"),
+    /** El juego al que se refiere la fila no está en la BD. */
+    UNKNOWN_GAME("unknown_game"),
+    /** Ya existe en la BD o está repetido en el archivo. */
+    DUPLICATE("duplicate"),
+    /** Modo delta: la fila no ha cambiado desde la importación anterior. */
+    UNCHANGED("unchanged"),
+    /** Error al convertir la fila en entidades. */
+    PROCESSING_ERROR("processing_error"),
+    /** El lote que la contenía falló al escribirse. */
+    WRITE_FAILED("write_failed");
+
+    private final String tag;
+
+    SkipReason(String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+}
@@ -0,0 +1,9 @@
+package com.paucasesnoves.steamAPI.modules.csv.repository;
+
+import com.paucasesnoves.steamAPI.modules.csv.domain.ImportCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ImportCheckpointRepository extends JpaRepository<ImportCheckpoint, String> {
+}
@@ -3,20 +3,38 @@ package com.paucasesnoves.steamAPI.modules.csv.service;
 import com.paucasesnoves.steamAPI.modules.csv.dto.CsvImportResultDto;
 import com.paucasesnoves.steamAPI.modules.csv.dto.CsvImportStatisticsDto;
 import com.paucasesnoves.steamAPI.utils.CsvUtils;
+import com.paucasesnoves.steamAPI.utils.MappedCsvReader;
+import com.paucasesnoves.steamAPI.utils.MultipartFileInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
 
 @Service
 public class CsvImportService {
 
     private static final Logger log = LoggerFactory.getLogger(CsvImportService.class);
+    private static final String GAMES_DATASET = "games";
+    public static final String ALL_DATASETS = "all";
 
     @Autowired private GameCsvImporter gameImporter;
     @Autowired private TagCsvImporter tagImporter;
@@ -24,6 +42,7 @@ public class CsvImportService {
     @Autowired private MediaCsvImporter mediaImporter;
     @Autowired private RequirementsCsvImporter requirementsImporter;
     @Autowired private SupportCsvImporter supportImporter;
+    @Autowired private ImportMetrics importMetrics;
 
     // Rutas de los archivos CSV en classpath
     private static final String[] CSV_FILES = {
@@ -35,9 +54,112 @@ public class CsvImportService {
             "data/steam_support_info.csv"
     };
 
-    public CsvImportResultDto importAllCsv() {
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+
+    // Con false los pasos se ejecutan de uno en uno, en el orden del plan
+    @Value("${steam.import.parallel:true}")
+    private boolean parallelImport;
+
+    // Datasets que se leen con el tokenizer mapeado en memoria (si el importador lo soporta)
+    @Value("${steam.import.mapped-datasets:}")
+    private Set<String> mappedDatasets;
+
+    /**
+     * Valida un dataset ("all" o el de un único importador) en seco: parseo y validación
+     * completos sin leer ni escribir la BD (ver {@link DryRun}). Las estadísticas de cada
+     * dataset, con los saltados por motivo, van en el resultado.
+     */
+    public CsvImportResultDto validateDataset(String dataset) {
+        return runPlan(planFor(dataset), null, new DryRun());
+    }
+
+    /**
+     * Importa un dataset ("all" o el de un único importador) informando del progreso al job.
+     * Si el job es un dry run solo se valida.
+     */
+    public CsvImportResultDto importDataset(String dataset, ImportJob job) {
+        return runPlan(planFor(dataset), job, dryRunFor(job));
+    }
+
+    public List<String> getDatasets() {
+        List<String> datasets = new ArrayList<>();
+        datasets.add(ALL_DATASETS);
+        buildImportPlan().forEach(step -> datasets.add(step.dataset()));
+        return datasets;
+    }
+
+    /**
+     * Importa un archivo subido al dataset indicado leyendo el cuerpo de la petición en
+     * streaming: se descomprime según Content-Encoding y, si es multipart, se extrae el
+     * primer archivo al vuelo. Como en un job de un único dataset, se asume que los juegos
+     * ya están cargados. El progreso se mide en bytes del cuerpo (comprimidos) sobre
+     * Content-Length.
+     */
+    public CsvImportResultDto importUpload(String dataset, Upload upload, ImportJob job) {
+        if (ALL_DATASETS.equals(dataset)) {
+            throw new IllegalArgumentException("Una subida contiene un único dataset");
+        }
+        ImportStep step = planFor(dataset).get(0);
+        long start = System.currentTimeMillis();
+        log.info("📤 Subida para {} ({} bytes, {}, Content-Encoding {})", step.name(),
+                upload.contentLength() >= 0 ? String.format("%,d", upload.contentLength()) : "?",
+                upload.contentType(), upload.contentEncoding() != null ? upload.contentEncoding() : "identity");
+
+        StepOutcome outcome;
+        try (CountingInputStream body = new CountingInputStream(upload.body())) {
+            InputStream content = openUploadContent(body, upload);
+            CsvImportStatisticsDto stats = runImporter(() -> step.importer().apply(content),
+                    step.name(), job, dryRunFor(job), upload.contentLength(), body::getCount);
+            outcome = new StepOutcome(stats, null);
+        } catch (Exception e) {
+            log.error("❌ Fallo en la subida de {}: {}", step.name(), e.getMessage(), e);
+            outcome = new StepOutcome(null, e);
+        }
+        return buildResult(List.of(step), Map.of(step, outcome), start, job != null && job.isDryRun());
+    }
+
+    private static DryRun dryRunFor(ImportJob job) {
+        return job != null && job.isDryRun() ? new DryRun() : null;
+    }
+
+    /**
+     * Content-Encoding, extracción del archivo si es multipart y, por último, detección
+     * de archivos comprimidos (p. ej. un steam.csv.gz subido sin Content-Encoding).
+     */
+    private static InputStream openUploadContent(InputStream body, Upload upload) throws IOException {
+        InputStream decoded = CsvUtils.decodeContent(body, upload.contentEncoding());
+        MediaType contentType = upload.contentType() != null
+                ? MediaType.parseMediaType(upload.contentType())
+                : MediaType.APPLICATION_OCTET_STREAM;
+        if (!MediaType.MULTIPART_FORM_DATA.includes(contentType)) {
+            return CsvUtils.decompressIfNeeded(decoded);
+        }
+        String boundary = contentType.getParameter("boundary");
+        if (boundary != null && boundary.length() >= 2 && boundary.startsWith("\"") && boundary.endsWith("\"")) {
+            boundary = boundary.substring(1, boundary.length() - 1);
+        }
+        MultipartFileInputStream file = MultipartFileInputStream.open(decoded, boundary);
+        log.info("📎 Archivo multipart: {}", file.getFilename());
+        return CsvUtils.decompressIfNeeded(file);
+    }
+
+    private CsvImportResultDto runPlan(List<ImportStep> plan, ImportJob job, DryRun dryRun) {
         long globalStartTime = System.currentTimeMillis();
+        if (dryRun != null) {
+            log.info("=== 🧪 VALIDANDO DATOS STEAM EN SECO ({} pasos, sin tocar la BD) ===", plan.size());
+        } else {
+            log.info("=== 🚀 INICIANDO IMPORTACIÓN DE DATOS STEAM ({} pasos) ===", plan.size());
+        }
+
+        Map<ImportStep, StepOutcome> outcomes = runImportPlan(plan, job, dryRun);
+        return buildResult(plan, outcomes, globalStartTime, dryRun != null);
+    }
+
+    private CsvImportResultDto buildResult(List<ImportStep> plan, Map<ImportStep, StepOutcome> outcomes,
+                                           long globalStartTime, boolean dryRun) {
         CsvImportResultDto result = new CsvImportResultDto();
+        Map<String, CsvImportStatisticsDto> statistics = new LinkedHashMap<>();
 
         // Acumuladores
         int totalSkipped = 0;
@@ -48,89 +170,22 @@ public class CsvImportService {
         int totalTags = 0;
         boolean hasErrors = false;
 
-        log.info("=== 🚀 INICIANDO IMPORTACIÓN COMPLETA DE DATOS STEAM ===");
-
-        // 1. Importar juegos (steam.csv)
-        try {
-            log.info("📁 [1/6] Importando juegos...");
-            CsvImportStatisticsDto stats = executeImport(gameImporter::importCsv, CSV_FILES[0]);
-            totalGames += stats.getCreated();
+        for (ImportStep step : plan) {
+            StepOutcome outcome = outcomes.get(step);
+            if (outcome.error() != null) {
+                hasErrors = true;
+                continue;
+            }
+            CsvImportStatisticsDto stats = outcome.stats();
+            statistics.put(step.dataset(), stats);
+            if (step.dataset().equals(GAMES_DATASET)) {
+                totalGames += stats.getCreated();
+            }
             totalDevelopers += stats.getDevelopersCreated();
             totalPublishers += stats.getPublishersCreated();
             totalGenres += stats.getGenresCreated();
+            totalTags += stats.getTagsCreated();
             totalSkipped += stats.getSkipped();
-            log.info("✅ Juegos: {} creados ({} saltados)",
-                    String.format("%,d", stats.getCreated()),
-                    String.format("%,d", stats.getSkipped()));
-        } catch (Exception e) {
-            hasErrors = true;
-            log.error("❌ Fallo en importación de juegos: {}", e.getMessage(), e);
-        }
-
-        // 2. Importar tags (steamspy_tag_data.csv)
-        try {
-            log.info("📁 [2/6] Importando tags...");
-            CsvImportStatisticsDto stats = executeImport(tagImporter::importCsv, CSV_FILES[1]);
-            totalTags += stats.getCreated();
-            totalSkipped += stats.getSkipped();
-            log.info("✅ Tags: {} creados ({} saltados)",
-                    String.format("%,d", stats.getCreated()),
-                    String.format("%,d", stats.getSkipped()));
-        } catch (Exception e) {
-            hasErrors = true;
-            log.error("❌ Fallo en importación de tags: {}", e.getMessage(), e);
-        }
-
-        // 3. Importar descripciones (steam_description_data.csv)
-        try {
-            log.info("📁 [3/6] Importando descripciones...");
-            CsvImportStatisticsDto stats = executeImport(descriptionImporter::importCsv, CSV_FILES[2]);
-            totalSkipped += stats.getSkipped();
-            log.info("✅ Descripciones: {} creadas ({} saltados)",
-                    String.format("%,d", stats.getCreated()),
-                    String.format("%,d", stats.getSkipped()));
-        } catch (Exception e) {
-            hasErrors = true;
-            log.error("❌ Fallo en importación de descripciones: {}", e.getMessage(), e);
-        }
-
-        // 4. Importar media (steam_media_data.csv)
-        try {
-            log.info("📁 [4/6] Importando media...");
-            CsvImportStatisticsDto stats = executeImport(mediaImporter::importCsv, CSV_FILES[3]);
-            totalSkipped += stats.getSkipped();
-            log.info("✅ Media: {} registros creados ({} saltados)",
-                    String.format("%,d", stats.getCreated()),
-                    String.format("%,d", stats.getSkipped()));
-        } catch (Exception e) {
-            hasErrors = true;
-            log.error("❌ Fallo en importación de media: {}", e.getMessage(), e);
-        }
-
-        // 5. Importar requisitos (steam_requirements_data.csv)
-        try {
-            log.info("📁 [5/6] Importando requisitos...");
-            CsvImportStatisticsDto stats = executeImport(requirementsImporter::importCsv, CSV_FILES[4]);
-            totalSkipped += stats.getSkipped();
-            log.info("✅ Requisitos: {} registros creados ({} saltados)",
-                    String.format("%,d", stats.getCreated()),
-                    String.format("%,d", stats.getSkipped()));
-        } catch (Exception e) {
-            hasErrors = true;
-            log.error("❌ Fallo en importación de requisitos: {}", e.getMessage(), e);
-        }
-
-        // 6. Importar soporte (steam_support_info.csv)
-        try {
-            log.info("📁 [6/6] Importando soporte...");
-            CsvImportStatisticsDto stats = executeImport(supportImporter::importCsv, CSV_FILES[5]);
-            totalSkipped += stats.getSkipped();
-            log.info("✅ Soporte: {} registros creados ({} saltados)",
-                    String.format("%,d", stats.getCreated()),
-                    String.format("%,d", stats.getSkipped()));
-        } catch (Exception e) {
-            hasErrors = true;
-            log.error("❌ Fallo en importación de soporte: {}", e.getMessage(), e);
         }
 
         // ===== Construir resultado =====
@@ -143,9 +198,11 @@ public class CsvImportService {
         result.setTags(totalTags);
         result.setSkippedLines(totalSkipped);
         result.setDurationSeconds(totalSeconds);
+        result.setDryRun(dryRun);
+        result.setStatistics(statistics);
 
         log.info("\n" + "=".repeat(70));
-        log.info("📊 RESUMEN GLOBAL DE IMPORTACIÓN");
+        log.info(dryRun ? "📊 RESUMEN GLOBAL DE VALIDACIÓN (DRY RUN)" : "📊 RESUMEN GLOBAL DE IMPORTACIÓN");
         log.info("=".repeat(70));
         log.info("Estado:               {}", result.getStatus());
         log.info("Juegos importados:    {}", String.format("%,d", result.getImportedGames()));
@@ -154,26 +211,284 @@ public class CsvImportService {
         log.info("Géneros:              {}", String.format("%,d", result.getGenres()));
         log.info("Tags:                 {}", String.format("%,d", result.getTags()));
         log.info("Líneas saltadas:      {}", String.format("%,d", result.getSkippedLines()));
+        statistics.forEach((dataset, stats) -> {
+            if (stats.getSkipped() > 0) {
+                log.info("  · {}: {}", dataset, stats.getSkippedByReason());
+            }
+        });
         log.info("Tiempo total:         {} segundos", String.format("%,.2f", result.getDurationSeconds()));
         log.info("=".repeat(70));
 
         return result;
     }
 
+    // =================================================================
+    // PLAN DE IMPORTACIÓN (DAG DE DEPENDENCIAS)
+    // =================================================================
+
+    /**
+     * Paso del plan: un importador, su archivo y los pasos que deben terminar antes.
+     * mappedImporter es opcional: variante del importador sobre {@link MappedCsvReader}.
+     */
+    private record ImportStep(String dataset,
+                              String name,
+                              String resourcePath,
+                              ThrowingFunction<InputStream, CsvImportStatisticsDto> importer,
+                              ThrowingFunction<MappedCsvReader, CsvImportStatisticsDto> mappedImporter,
+                              List<ImportStep> dependsOn) {
+
+        ImportStep(String dataset, String name, String resourcePath,
+                   ThrowingFunction<InputStream, CsvImportStatisticsDto> importer,
+                   List<ImportStep> dependsOn) {
+            this(dataset, name, resourcePath, importer, null, dependsOn);
+        }
+
+        ImportStep withoutDependencies() {
+            return new ImportStep(dataset, name, resourcePath, importer, mappedImporter, List.of());
+        }
+    }
+
+    /**
+     * Cuerpo de una subida con las cabeceras que hacen falta para leerlo.
+     * contentLength es -1 si la petición no lo indica (chunked).
+     */
+    public record Upload(InputStream body, long contentLength, String contentType, String contentEncoding) {
+    }
+
+    /**
+     * Resultado de un paso: estadísticas o el error que lo interrumpió.
+     */
+    private record StepOutcome(CsvImportStatisticsDto stats, Exception error) {
+    }
+
+    /**
+     * Solo steam.csv tiene que terminar antes que el resto: los demás importadores
+     * únicamente leen juegos y escriben en tablas distintas, así que pueden ir en paralelo.
+     * La lista está en orden topológico (cada paso aparece después de sus dependencias).
+     */
+    private List<ImportStep> buildImportPlan() {
+        ImportStep games = new ImportStep(GAMES_DATASET, "juegos", CSV_FILES[0], gameImporter::importCsv,
+                gameImporter::importCsv, List.of());
+        List<ImportStep> afterGames = List.of(games);
+        return List.of(
+                games,
+                new ImportStep("tags", "tags", CSV_FILES[1], tagImporter::importCsv, afterGames),
+                new ImportStep("descriptions", "descripciones", CSV_FILES[2], descriptionImporter::importCsv,
+                        descriptionImporter::importCsv, afterGames),
+                new ImportStep("media", "media", CSV_FILES[3], mediaImporter::importCsv,
+                        mediaImporter::importCsv, afterGames),
+                new ImportStep("requirements", "requisitos", CSV_FILES[4], requirementsImporter::importCsv, afterGames),
+                new ImportStep("support", "soporte", CSV_FILES[5], supportImporter::importCsv, afterGames)
+        );
+    }
+
+    /**
+     * Plan de un dataset concreto: el paso pedido sin dependencias (se asume que los
+     * juegos ya están cargados), o el plan completo para "all".
+     */
+    private List<ImportStep> planFor(String dataset) {
+        if (ALL_DATASETS.equals(dataset)) {
+            return buildImportPlan();
+        }
+        return buildImportPlan().stream()
+                .filter(step -> step.dataset().equals(dataset))
+                .map(ImportStep::withoutDependencies)
+                .findFirst()
+                .map(List::of)
+                .orElseThrow(() -> new IllegalArgumentException("Dataset desconocido: " + dataset));
+    }
+
+    /**
+     * Ejecuta el plan: cada paso arranca en cuanto terminan sus dependencias (con o sin
+     * error, como en la importación secuencial). Cada importador corre en su propio hilo
+     * y por tanto con su propia conexión y transacción; el número de hilos se limita
+     * al pool de Hikari dejando una conexión libre para el resto de la aplicación.
+     */
+    private Map<ImportStep, StepOutcome> runImportPlan(List<ImportStep> plan, ImportJob job, DryRun dryRun) {
+        int workers = parallelImport
+                ? Math.max(1, Math.min(plan.size(), connectionPoolSize - 1))
+                : 1;
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workers,
+                runnable -> new Thread(runnable, "csv-import-" + threadCounter.incrementAndGet()));
+        log.info("🧵 Plan de importación: {} pasos en {} hilo(s)", plan.size(), workers);
+
+        try {
+            Map<ImportStep, CompletableFuture<StepOutcome>> futures = new LinkedHashMap<>();
+            for (int i = 0; i < plan.size(); i++) {
+                ImportStep step = plan.get(i);
+                String label = String.format("[%d/%d]", i + 1, plan.size());
+                CompletableFuture<?>[] dependencies = step.dependsOn().stream()
+                        .map(dependency -> {
+                            CompletableFuture<StepOutcome> future = futures.get(dependency);
+                            if (future == null) {
+                                throw new IllegalStateException("Dependencia fuera de orden: " + dependency.name());
+                            }
+                            return future;
+                        })
+                        .toArray(CompletableFuture[]::new);
+                futures.put(step, CompletableFuture.allOf(dependencies)
+                        .thenApplyAsync(ignored -> runStep(step, label, job, dryRun), executor));
+            }
+
+            Map<ImportStep, StepOutcome> outcomes = new LinkedHashMap<>();
+            futures.forEach((step, future) -> outcomes.put(step, future.join()));
+            return outcomes;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private StepOutcome runStep(ImportStep step, String label, ImportJob job, DryRun dryRun) {
+        long start = System.currentTimeMillis();
+        if (job != null && job.isCancelRequested()) {
+            log.warn("⏹️ {} {} no iniciado: importación cancelada", label, step.name());
+            return new StepOutcome(null, new CancellationException("Importación cancelada"));
+        }
+        try {
+            log.info("📁 {} Importando {}...", label, step.name());
+            CsvImportStatisticsDto stats = executeStep(step, job, dryRun);
+            log.info("✅ {} {}: {} creados ({} saltados) en {}s", label, step.name(),
+                    String.format("%,d", stats.getCreated()),
+                    String.format("%,d", stats.getSkipped()),
+                    String.format("%.2f", (System.currentTimeMillis() - start) / 1000.0));
+            return new StepOutcome(stats, null);
+        } catch (Exception e) {
+            log.error("❌ Fallo en importación de {}: {}", step.name(), e.getMessage(), e);
+            return new StepOutcome(null, e);
+        }
+    }
+
+    /**
+     * Usa el lector mapeado cuando el dataset está en steam.import.mapped-datasets, el
+     * importador tiene variante mapeada y el recurso es un archivo; si no, el stream.
+     */
+    private CsvImportStatisticsDto executeStep(ImportStep step, ImportJob job, DryRun dryRun) throws IOException {
+        if (step.mappedImporter() != null && mappedDatasets.contains(step.dataset())) {
+            Optional<MappedCsvReader> mapped = CsvUtils.openMappedResource(step.resourcePath());
+            if (mapped.isPresent()) {
+                log.info("🗺️ {} se lee mapeado en memoria ({} bytes)", step.name(),
+                        String.format("%,d", mapped.get().size()));
+                try (MappedCsvReader reader = mapped.get()) {
+                    return runImporter(() -> step.mappedImporter().apply(reader),
+                            step.name(), job, dryRun, reader.size(), reader::position);
+                }
+            }
+            log.warn("⚠️ {} no se puede mapear (no es un archivo del sistema de ficheros o está comprimido): se lee como stream",
+                    step.resourcePath());
+        }
+        return executeImport(step.importer(), step.resourcePath(), step.name(), job, dryRun);
+    }
+
     /**
      * Ejecuta un importador con manejo de recursos y excepciones.
      */
     private CsvImportStatisticsDto executeImport(ThrowingFunction<InputStream, CsvImportStatisticsDto> importer,
                                                  String resourcePath) throws IOException {
-        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
-        Resource resource = resolver.getResource("classpath:" + resourcePath);
-        if (!resource.exists()) {
-            throw new IOException("Archivo no encontrado: " + resourcePath);
+        return executeImport(importer, resourcePath, resourcePath, null, null);
+    }
+
+    /**
+     * Variante que, si hay job, registra el progreso del importador (bytes leídos
+     * sobre el tamaño del recurso) y lo asocia al hilo actual mientras se ejecuta.
+     * Los recursos comprimidos (gzip, zstd o xz) se descomprimen al vuelo; el progreso
+     * cuenta bytes comprimidos, que es lo que mide el tamaño del recurso.
+     */
+    private CsvImportStatisticsDto executeImport(ThrowingFunction<InputStream, CsvImportStatisticsDto> importer,
+                                                 String resourcePath,
+                                                 String importerName,
+                                                 ImportJob job,
+                                                 DryRun dryRun) throws IOException {
+        Resource resource = CsvUtils.findResource(resourcePath);
+        try (CountingInputStream is = new CountingInputStream(resource.getInputStream())) {
+            InputStream content = CsvUtils.decompressIfNeeded(is);
+            return runImporter(() -> importer.apply(content), importerName, job, dryRun,
+                    contentLength(resource), is::getCount);
         }
-        try (InputStream is = resource.getInputStream()) {
-            return importer.apply(is);
+    }
+
+    /**
+     * Asocia al hilo actual el progreso del importador (bytes leídos sobre el total)
+     * mientras se ejecuta, si hay job, el dry run, si lo es, y siempre sus medidores de
+     * Micrometer.
+     */
+    private CsvImportStatisticsDto runImporter(ThrowingSupplier<CsvImportStatisticsDto> importer,
+                                               String importerName,
+                                               ImportJob job,
+                                               DryRun dryRun,
+                                               long totalBytes,
+                                               LongSupplier bytesRead) {
+        ImportProgress progress = job != null
+                ? job.startImporter(importerName, totalBytes, bytesRead)
+                : null;
+        if (progress != null) {
+            ImportProgress.bind(progress);
+        }
+        ImportProgress.bindMeters(importMetrics.forImporter(importerName, dryRun != null));
+        DryRun.bind(dryRun);
+        try {
+            CsvImportStatisticsDto stats = importer.get();
+            if (progress != null) {
+                progress.complete(stats);
+            }
+            return stats;
         } catch (Exception e) {
+            if (progress != null) {
+                progress.fail();
+            }
             throw new RuntimeException(e);
+        } finally {
+            ImportProgress.unbind();
+            DryRun.unbind();
+        }
+    }
+
+    private static long contentLength(Resource resource) {
+        try {
+            return resource.contentLength();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Cuenta los bytes leídos del recurso para estimar el porcentaje y el ETA.
+     * Solo escribe el hilo del importador; los lectores ven el último valor publicado.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
         }
     }
 
@@ -182,6 +497,11 @@ public class CsvImportService {
         R apply(T t) throws Exception;
     }
 
+    @FunctionalInterface
+    private interface ThrowingSupplier<R> {
+        R get() throws Exception;
+    }
+
     // =================================================================
     // MÉTODOS PARA IMPORTACIÓN INDIVIDUAL (delegación)
     // =================================================================
@@ -210,10 +530,9 @@ public class CsvImportService {
     }
 
     public String checkFiles() {
-        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
         StringBuilder sb = new StringBuilder("=== ARCHIVOS ENCONTRADOS EN /data ===\n");
         for (String path : CSV_FILES) {
-            boolean exists = resolver.getResource("classpath:" + path).exists();
+            boolean exists = CsvUtils.resourceExists(path);
             sb.append(exists ? "✓ " : "✗ ").append(path).append("\n");
         }
         return sb.toString();
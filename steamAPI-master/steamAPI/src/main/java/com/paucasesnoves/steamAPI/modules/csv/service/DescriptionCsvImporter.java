@@ -3,7 +3,10 @@ package com.paucasesnoves.steamAPI.modules.csv.service;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
 import com.paucasesnoves.steamAPI.modules.csv.dto.CsvImportStatisticsDto;
+import com.paucasesnoves.steamAPI.modules.csv.dto.SkipReason;
 import com.paucasesnoves.steamAPI.utils.CsvUtils;
+import com.paucasesnoves.steamAPI.utils.LongHashSet;
+import com.paucasesnoves.steamAPI.utils.MappedCsvReader;
 import com.paucasesnoves.steamAPI.modules.games.domain.Game;
 import com.paucasesnoves.steamAPI.modules.games.domain.GameDescription;
 import com.paucasesnoves.steamAPI.modules.games.repository.GameDescriptionRepository;
@@ -14,18 +17,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Function;
 
 @Service
 public class DescriptionCsvImporter {
 
     private static final Logger log = LoggerFactory.getLogger(DescriptionCsvImporter.class);
     private static final int BATCH_SIZE = 1000;
+    private static final String DATASET = "descriptions";
     private static final String[] EXPECTED_HEADER = {
             "steam_appid", "detailed_description", "about_the_game", "short_description"
     };
@@ -34,24 +39,28 @@ public class DescriptionCsvImporter {
     private GameRepository gameRepo;
     @Autowired
     private GameDescriptionRepository descriptionRepo;
+    @Autowired
+    private SatelliteUpsertWriter upsertWriter;
+    @Autowired
+    private StatelessSatelliteWriter statelessWriter;
+    @Autowired
+    private ImportPipeline importPipeline;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
     @PersistenceContext
     private EntityManager entityManager;
 
-    @Transactional
+    /**
+     * Sin transacción envolvente: cada lote se confirma en la suya, así que el tamaño de
+     * las transacciones no depende del archivo y un fallo tardío no deshace lo importado.
+     */
     public CsvImportStatisticsDto importCsv(InputStream inputStream) {
         CsvImportStatisticsDto stats = new CsvImportStatisticsDto();
+        ImportProgress.track(stats);
         long startTime = System.currentTimeMillis();
 
-        // 1. Cache de juegos
-        Map<Long, Game> gameCache = CsvUtils.buildEntityCache(
-                gameRepo.findAll(), Game::getAppId);
-        log.info("📦 Cache de juegos cargado: {} entidades", gameCache.size());
-
-        // 2. Conjunto de juegos que YA TIENEN descripción (para evitar existsByGame)
-        Set<Long> existingDescriptions = descriptionRepo.findAll().stream()
-                .map(desc -> desc.getGame().getAppId())
-                .collect(HashSet::new, HashSet::add, HashSet::addAll);
-        log.info("🔍 Descripciones existentes: {} juegos", existingDescriptions.size());
+        GameReferences games = GameReferences.load(gameRepo, entityManager);
+        LongHashSet existingDescriptions = loadExistingDescriptions();
 
         try (CSVReader reader = new CSVReaderBuilder(
                 new InputStreamReader(inputStream, StandardCharsets.UTF_8))
@@ -59,65 +68,88 @@ public class DescriptionCsvImporter {
                 .build()) {
 
             String[] header = reader.readNext();
-            if (!CsvUtils.isHeaderValid(header, EXPECTED_HEADER)) {
+            if (!ImportEvents.HeaderValidation.validate(header, h -> CsvUtils.isHeaderValid(h, EXPECTED_HEADER))) {
+                log.error("❌ Cabecera inválida");
+                return stats;
+            }
+
+            // Lectura y filtrado aquí; creación de entidades en los workers; escritura por lotes
+            int[] lineNumber = {1};
+            importPipeline.run(
+                    () -> nextRow(reader, lineNumber, stats, games, existingDescriptions),
+                    row -> buildDescription(row, stats),
+                    BATCH_SIZE,
+                    batch -> ImportPersistence.saveBatchInTransaction(batch, saveFunction(), stats,
+                            entityManager, transactionTemplate));
+
+            CsvUtils.logFinalStatistics(stats, startTime, "Descripciones");
+
+        } catch (Exception e) {
+            log.error("❌ Error fatal", e);
+            throw new RuntimeException("Falló importación de descripciones", e);
+        }
+
+        return stats;
+    }
+
+    /**
+     * Misma importación leyendo el archivo mapeado en memoria: el appId se parsea sin
+     * crear Strings y los tres campos HTML solo se decodifican si la fila se va a guardar.
+     * Como en la variante de stream, cada lote se confirma en su propia transacción.
+     */
+    public CsvImportStatisticsDto importCsv(MappedCsvReader reader) {
+        CsvImportStatisticsDto stats = new CsvImportStatisticsDto();
+        ImportProgress.track(stats);
+        long startTime = System.currentTimeMillis();
+
+        GameReferences games = GameReferences.load(gameRepo, entityManager);
+        LongHashSet existingDescriptions = loadExistingDescriptions();
+
+        try {
+            String[] header = reader.readNext();
+            if (!ImportEvents.HeaderValidation.validate(header, h -> CsvUtils.isHeaderValid(h, EXPECTED_HEADER))) {
                 log.error("❌ Cabecera inválida");
                 return stats;
             }
 
             List<GameDescription> batch = new ArrayList<>(BATCH_SIZE);
-            String[] line;
             int lineNumber = 1;
 
-            while ((line = reader.readNext()) != null) {
+            while (reader.next()) {
+                ImportProgress.checkCancelled();
                 lineNumber++;
                 stats.incrementProcessed();
 
                 try {
-                    if (line.length < 4) {
-                        stats.incrementSkipped();
+                    if (reader.fieldCount() < 4) {
+                        stats.incrementSkipped(SkipReason.MALFORMED_ROW);
                         continue;
                     }
 
-                    Long appId = CsvUtils.parseLong(line[0].trim()).orElse(null);
+                    Long appId = reader.getLong(0).orElse(null);
                     if (appId == null) {
-                        stats.incrementSkipped();
+                        stats.incrementSkipped(SkipReason.INVALID_APP_ID);
                         continue;
                     }
 
-                    Game game = gameCache.get(appId);
-                    if (game == null || existingDescriptions.contains(appId)) {
-                        stats.incrementSkipped();
+                    Game game = games.get(appId);
+                    if (game == null || !existingDescriptions.add(appId)) {
+                        stats.incrementSkipped(game == null ? SkipReason.UNKNOWN_GAME : SkipReason.DUPLICATE);
                         continue;
                     }
 
-                    GameDescription desc = new GameDescription();
-                    desc.setGame(game);
-                    desc.setDetailedDescription(line[1].trim());
-                    desc.setAboutTheGame(line[2].trim());
-                    desc.setShortDescription(line[3].trim());
-
-                    batch.add(desc);
-                    stats.incrementCreated();
-
-                    if (batch.size() >= BATCH_SIZE) {
-                        CsvUtils.saveBatchAndClear(batch, descriptionRepo::saveAll,
-                                stats, entityManager);
-                        batch.clear();
-                    }
-
-                    if (stats.getCreated() % 5000 == 0) {
-                        log.info("✅ {} descripciones importadas...", stats.getCreated());
-                    }
+                    addDescription(batch, stats, game,
+                            reader.getTrimmedString(1), reader.getTrimmedString(2), reader.getTrimmedString(3));
 
                 } catch (Exception e) {
                     log.warn("⚠️ Error línea {}: {}", lineNumber, e.getMessage());
-                    stats.incrementSkipped();
+                    stats.incrementSkipped(SkipReason.PROCESSING_ERROR);
                 }
             }
 
             if (!batch.isEmpty()) {
-                CsvUtils.saveBatchAndClear(batch, descriptionRepo::saveAll,
-                        stats, entityManager);
+                ImportPersistence.saveBatchInTransaction(batch, saveFunction(),
+                        stats, entityManager, transactionTemplate);
             }
 
             CsvUtils.logFinalStatistics(stats, startTime, "Descripciones");
@@ -129,4 +161,114 @@ public class DescriptionCsvImporter {
 
         return stats;
     }
-}
\ No newline at end of file
+
+    /**
+     * Fila del CSV que ha pasado los filtros y falta convertir en entidad.
+     */
+    private record DescriptionRow(Game game, String[] line, int lineNumber) {
+    }
+
+    /**
+     * Lee hasta la siguiente fila que hay que importar, contando y saltando las demás.
+     * @return null al acabar el archivo
+     */
+    private DescriptionRow nextRow(CSVReader reader, int[] lineNumber, CsvImportStatisticsDto stats,
+                                   GameReferences games, LongHashSet existingDescriptions) throws Exception {
+        String[] line;
+        while ((line = reader.readNext()) != null) {
+            ImportProgress.checkCancelled();
+            lineNumber[0]++;
+            stats.incrementProcessed();
+
+            if (line.length < 4) {
+                stats.incrementSkipped(SkipReason.MALFORMED_ROW);
+                continue;
+            }
+
+            Long appId = CsvUtils.parseLong(line[0].trim()).orElse(null);
+            if (appId == null) {
+                stats.incrementSkipped(SkipReason.INVALID_APP_ID);
+                continue;
+            }
+
+            Game game = games.get(appId);
+            if (game == null || !existingDescriptions.add(appId)) {
+                stats.incrementSkipped(game == null ? SkipReason.UNKNOWN_GAME : SkipReason.DUPLICATE);
+                continue;
+            }
+
+            return new DescriptionRow(game, line, lineNumber[0]);
+        }
+        return null;
+    }
+
+    /**
+     * Crea la GameDescription de una fila. Puede correr en un worker del pipeline.
+     */
+    private GameDescription buildDescription(DescriptionRow row, CsvImportStatisticsDto stats) {
+        try {
+            GameDescription desc = newDescription(row.game(),
+                    row.line()[1].trim(), row.line()[2].trim(), row.line()[3].trim());
+            stats.incrementCreated();
+
+            if (stats.getCreated() % 5000 == 0) {
+                log.info("✅ {} descripciones importadas...", stats.getCreated());
+            }
+            return desc;
+
+        } catch (Exception e) {
+            log.warn("⚠️ Error línea {}: {}", row.lineNumber(), e.getMessage());
+            stats.incrementSkipped(SkipReason.PROCESSING_ERROR);
+            return null;
+        }
+    }
+
+    // Conjunto de juegos que YA TIENEN descripción (para evitar existsByGame).
+    //    En modo upsert se reemplazan, así que solo se filtran los repetidos del CSV
+    private LongHashSet loadExistingDescriptions() {
+        if (DryRun.isActive()) {
+            log.info("🧪 Dry run: sin descripciones existentes, solo se filtran los repetidos del CSV");
+            return new LongHashSet();
+        }
+        if (upsertWriter.isUpsertMode()) {
+            log.info("🔁 Modo upsert: las descripciones existentes se reemplazan");
+            return new LongHashSet();
+        }
+        LongHashSet existingDescriptions = descriptionRepo.findAllGameAppIds();
+        log.info("🔍 Descripciones existentes: {} juegos", existingDescriptions.size());
+        return existingDescriptions;
+    }
+
+    private Function<List<GameDescription>, Iterable<GameDescription>> saveFunction() {
+        if (upsertWriter.isUpsertMode()) {
+            return upsertWriter::upsertDescriptions;
+        }
+        return statelessWriter.isEnabled(DATASET) ? statelessWriter::insert : descriptionRepo::saveAll;
+    }
+
+    private static GameDescription newDescription(Game game, String detailedDescription,
+                                                  String aboutTheGame, String shortDescription) {
+        GameDescription desc = new GameDescription();
+        desc.setGame(game);
+        desc.setDetailedDescription(detailedDescription);
+        desc.setAboutTheGame(aboutTheGame);
+        desc.setShortDescription(shortDescription);
+        return desc;
+    }
+
+    private void addDescription(List<GameDescription> batch, CsvImportStatisticsDto stats, Game game,
+                                String detailedDescription, String aboutTheGame, String shortDescription) {
+        batch.add(newDescription(game, detailedDescription, aboutTheGame, shortDescription));
+        stats.incrementCreated();
+
+        if (batch.size() >= BATCH_SIZE) {
+            ImportPersistence.saveBatchInTransaction(batch, saveFunction(),
+                    stats, entityManager, transactionTemplate);
+            batch.clear();
+        }
+
+        if (stats.getCreated() % 5000 == 0) {
+            log.info("✅ {} descripciones importadas...", stats.getCreated());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.paucasesnoves.steamAPI.modules.csv.service;
+
+import com.paucasesnoves.steamAPI.utils.LongHashSet;
+
+import java.util.function.LongPredicate;
+
+/**
+ * Ejecución en seco (dry run) de una importación: los importadores leen y validan cada
+ * fila igual que en una importación real (cabecera, appId, duplicados, JSON de media,
+ * lookups...) pero no leen ni escriben la BD, así que van a velocidad de parseo.
+ * <p>
+ * CsvImportService la asocia al hilo del importador, como {@link ImportProgress}, y los
+ * importadores la consultan en sus dos fronteras con la BD:
+ * <ul>
+ *     <li>Precarga: en lugar de juegos, filas existentes o lookups de la BD se parte de
+ *     conjuntos vacíos, así que solo se detectan los duplicados dentro del archivo.</li>
+ *     <li>Escritura: los lotes se descartan (y los checkpoints no se tocan). Las
+ *     estadísticas cuentan lo que se habría creado y los saltados por motivo.</li>
+ * </ul>
+ * Los juegos que admite el importador de juegos quedan registrados para el resto del
+ * plan; si el dataset se valida suelto no hay juegos de referencia y se acepta cualquier
+ * appId (no se cuentan juegos desconocidos).
+ */
+public final class DryRun {
+
+    private static final ThreadLocal<DryRun> CURRENT = new ThreadLocal<>();
+
+    // appIds admitidos por el importador de juegos en esta ejecución (null si no ha corrido)
+    private volatile LongHashSet gameAppIds;
+
+    DryRun() {
+    }
+
+    /**
+     * True si el importador de este hilo corre en seco.
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Stand-in de la tabla games: los juegos admitidos en esta ejecución o, si no se han
+     * importado juegos, cualquier appId. Ver {@link GameReferences}.
+     */
+    public static LongPredicate gameExists() {
+        LongHashSet appIds = CURRENT.get().gameAppIds;
+        return appIds != null ? appIds::contains : appId -> true;
+    }
+
+    /**
+     * Registra los juegos admitidos para que los satélites del mismo plan los validen.
+     */
+    public static void registerGames(LongHashSet appIds) {
+        CURRENT.get().gameAppIds = appIds;
+    }
+
+    static DryRun current() {
+        return CURRENT.get();
+    }
+
+    static void bind(DryRun dryRun) {
+        if (dryRun != null) {
+            CURRENT.set(dryRun);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+}
@@ -1,24 +1,29 @@
 package com.paucasesnoves.steamAPI.modules.csv.service;
 
 import com.opencsv.bean.CsvToBean;
-import com.opencsv.bean.CsvToBeanBuilder;
-import com.opencsv.bean.HeaderColumnNameMappingStrategy;
 import com.paucasesnoves.steamAPI.modules.csv.dto.CsvImportStatisticsDto;
 import com.paucasesnoves.steamAPI.modules.csv.dto.GameCsvRecord;
+import com.paucasesnoves.steamAPI.modules.csv.dto.SkipReason;
 import com.paucasesnoves.steamAPI.modules.games.domain.*;
 import com.paucasesnoves.steamAPI.modules.games.repository.*;
+import com.paucasesnoves.steamAPI.utils.CsvUtils;
+import com.paucasesnoves.steamAPI.utils.LongHashSet;
+import com.paucasesnoves.steamAPI.utils.LongLongHashMap;
+import com.paucasesnoves.steamAPI.utils.MappedCsvReader;
+import com.paucasesnoves.steamAPI.utils.ParallelCsvParser;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class GameCsvImporter {
@@ -26,161 +31,773 @@ public class GameCsvImporter {
     @Autowired
     private GameRepository gameRepo;
     @Autowired
-    private DeveloperRepository developerRepo;
+    private LookupDictionaryService lookupDictionaryService;
     @Autowired
-    private PublisherRepository publisherRepo;
+    private GameJdbcWriter gameJdbcWriter;
     @Autowired
-    private PlatformRepository platformRepo;
+    private ImportCheckpointService checkpointService;
     @Autowired
-    private CategoryRepository categoryRepo;
+    private GameRowHashStore rowHashStore;
     @Autowired
-    private GenreRepository genreRepo;
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ImportPipeline importPipeline;
+
+    /**
+     * Modo de escritura de juegos: "jpa" (save por entidad) o "jdbc" (INSERT en batch
+     * de juegos y tablas de relación, ver {@link GameJdbcWriter}).
+     */
+    @Value("${steam.import.game-writer:jpa}")
+    private String gameWriter;
+
+    /**
+     * "insert" salta los juegos que ya existen; "upsert" los reemplaza con un INSERT ...
+     * ON DUPLICATE KEY UPDATE por lote (siempre por JDBC); "delta" compara el hash de cada
+     * fila con el de la importación anterior y solo escribe altas, cambios y bajas
+     * (requiere leer steam.csv mapeado en memoria).
+     */
+    @Value("${steam.import.game-mode:insert}")
+    private String gameMode;
+
+    /**
+     * Modo delta: fracción máxima de los juegos de la BD que se puede borrar en una pasada.
+     * Por encima se asume un archivo truncado o con appIds corruptos y no se borra ninguno.
+     */
+    @Value("${steam.import.delta.max-delete-fraction:0.05}")
+    private double maxDeleteFraction;
+
+    /**
+     * Hilos para parsear steam.csv cuando se lee mapeado en memoria (0 = todos los núcleos)
+     * y orden de entrega de los registros: "ordered" (orden del archivo, por appid) o
+     * "arrival" (según terminan los trozos).
+     */
+    @Value("${steam.import.parse-threads:0}")
+    private int parseThreads;
+    @Value("${steam.import.parse-order:ordered}")
+    private String parseOrder;
 
     @PersistenceContext
     private EntityManager entityManager;
 
     private static final int BATCH_SIZE = 1000;
-    private static final int CACHE_CLEAN_INTERVAL = 5000;
-
-    // Caches
-    private final Map<String, Developer> developerCache = new ConcurrentHashMap<>();
-    private final Map<String, Publisher> publisherCache = new ConcurrentHashMap<>();
-    private final Map<String, Platform> platformCache = new ConcurrentHashMap<>();
-    private final Map<String, Category> categoryCache = new ConcurrentHashMap<>();
-    private final Map<String, Genre> genreCache = new ConcurrentHashMap<>();
+    private static final String CHECKPOINT_KEY = "games";
 
-    @Transactional
+    /**
+     * Sin transacción envolvente: cada lote se confirma en la suya (ver {@link #commitBatch}),
+     * así que el tamaño de las transacciones no depende del archivo y un fallo tardío no
+     * deshace lo importado.
+     */
     public CsvImportStatisticsDto importCsv(InputStream inputStream) throws Exception {
         long startTime = System.currentTimeMillis();
         CsvImportStatisticsDto stats = new CsvImportStatisticsDto();
-        clearAllCaches();
+        ImportProgress.track(stats);
+        entityManager.clear();
 
         System.out.println("🚀 INICIANDO IMPORTACIÓN DE JUEGOS (Mapeo por columnas) 🚀");
+        if (isDeltaMode()) {
+            System.out.println("⚠️  El modo delta necesita steam.csv mapeado en memoria: se importa en modo insert");
+        }
 
-        try (InputStreamReader reader = new InputStreamReader(inputStream, "UTF-8")) {
+        // Diccionarios de lookups: una consulta por tabla y sin vaciados durante la importación
+        LookupDictionaryService.Dictionaries dictionaries = lookupDictionaryService.load(stats);
 
-            HeaderColumnNameMappingStrategy<GameCsvRecord> strategy =
-                    new HeaderColumnNameMappingStrategy<>();
-            strategy.setType(GameCsvRecord.class);
+        // appIds ya presentes en BD (una sola consulta); también detecta duplicados dentro del archivo
+        LongHashSet knownAppIds = loadKnownAppIds();
 
-            CsvToBean<GameCsvRecord> csvToBean = new CsvToBeanBuilder<GameCsvRecord>(reader)
-                    .withMappingStrategy(strategy)
-                    .withIgnoreLeadingWhiteSpace(true)
-                    .withIgnoreEmptyLine(true)
-                    .withThrowExceptions(false)
-                    .build();
+        try (InputStreamReader reader = new InputStreamReader(inputStream, "UTF-8")) {
 
-            List<GameCsvRecord> records = csvToBean.parse();
-            stats.setProcessed(records.size());
+            // Lectura en streaming: cada registro se parsea al iterar, de modo que la
+            // memoria no depende del tamaño del archivo y los lotes se escriben mientras se lee
+            CsvToBean<GameCsvRecord> csvToBean = CsvUtils.createBeanReader(reader, GameCsvRecord.class);
 
-            System.out.printf("📄 Total de registros leídos: %,d%n", records.size());
+            // Lectura, validación del appId y duplicados aquí; creación del juego en los workers;
+            // lookups y escritura en el hilo escritor (los diccionarios no son thread-safe)
+            Iterator<GameCsvRecord> records = csvToBean.iterator();
+            int[] lineNumber = {1}; // cabecera
+            List<Game> gamesBatch = new ArrayList<>(BATCH_SIZE);
+            importPipeline.run(
+                    () -> nextRecord(records, lineNumber, stats, knownAppIds),
+                    row -> buildGame(row, stats),
+                    BATCH_SIZE,
+                    batch -> {
+                        for (PendingGame pending : batch) {
+                            addToBatch(pending, stats, dictionaries, gamesBatch);
+                        }
+                        if (!gamesBatch.isEmpty()) {
+                            commitBatch(gamesBatch, dictionaries, stats, null);
+                            entityManager.clear();
+                        }
+                    });
+            registerDryRunGames(knownAppIds);
+
+            System.out.printf("📄 Total de registros leídos: %,d%n", stats.getProcessed());
 
             // Verificar que se leyeron registros
-            if (records.isEmpty()) {
+            if (stats.getProcessed() == 0) {
                 System.out.println("⚠️  No se encontraron registros en el CSV");
                 return stats;
             }
 
-            // Mostrar información de las columnas del primer registro
-            if (!records.isEmpty()) {
-                System.out.println("📋 Ejemplo de primer registro leído:");
-                GameCsvRecord firstRecord = records.get(0);
-                System.out.printf("  appid: %s, name: %s%n",
-                        firstRecord.getAppId(),
-                        firstRecord.getTitle());
+            // Estadísticas finales
+            printFinalStatistics(stats, startTime);
+
+            // Importación completa: un checkpoint anterior ya no sirve
+            checkpointService.clear(CHECKPOINT_KEY);
+
+        } catch (Exception e) {
+            System.err.println("❌ Error crítico durante la importación: " + e.getMessage());
+            e.printStackTrace();
+            throw e;
+        } finally {
+            entityManager.clear();
+        }
+
+        return stats;
+    }
+
+    /**
+     * Variante sobre el archivo mapeado: el parseo (bytes → GameCsvRecord) se reparte entre
+     * varios hilos con {@link ParallelCsvParser} y este hilo solo crea los juegos y escribe
+     * los lotes.
+     * <p>
+     * Cada lote se confirma en su propia transacción junto con un checkpoint (byte donde
+     * acaba su último registro), así que si la importación se interrumpe la siguiente
+     * salta directamente a ese byte. Con orden "arrival" los registros no llegan en orden
+     * de archivo y no hay un byte que delimite lo guardado: se importa sin checkpoints.
+     */
+    public CsvImportStatisticsDto importCsv(MappedCsvReader reader) throws Exception {
+        int threads = parseThreads > 0 ? parseThreads : Runtime.getRuntime().availableProcessors();
+        ParallelCsvParser.Order order = ParallelCsvParser.Order.valueOf(parseOrder.trim().toUpperCase());
+        if (isDeltaMode() && !DryRun.isActive()) {
+            return importDelta(reader, threads, order);
+        }
+        if (isDeltaMode()) {
+            System.out.println("🧪 Dry run: el modo delta necesita los hashes de la BD, se valida como una importación normal");
+        }
+
+        long startTime = System.currentTimeMillis();
+        CsvImportStatisticsDto stats = new CsvImportStatisticsDto();
+        ImportProgress.track(stats);
+        entityManager.clear();
+        System.out.printf("🚀 INICIANDO IMPORTACIÓN DE JUEGOS (parseo paralelo: %d hilos, orden %s) 🚀%n",
+                threads, order);
+
+        LookupDictionaryService.Dictionaries dictionaries = lookupDictionaryService.load(stats);
+        LongHashSet knownAppIds = loadKnownAppIds();
+
+        try {
+            String[] header = reader.readNext();
+            MappedRecordMapper mapper = MappedRecordMapper.forHeader(header);
+
+            boolean checkpoints = checkpointService.isEnabled() && order == ParallelCsvParser.Order.ORDERED;
+            if (checkpointService.isEnabled() && !checkpoints) {
+                System.out.println("⚠️  Orden ARRIVAL: importación sin checkpoints");
+            }
+
+            // Posición actual: línea, lote y byte tras el último registro consumido
+            int[] lineNumber = {1}; // cabecera
+            int[] batchNumber = {0};
+            long[] lastOffset = {reader.position()};
+            if (checkpoints) {
+                checkpointService.findResumable(CHECKPOINT_KEY, reader).ifPresent(checkpoint -> {
+                    reader.seek(checkpoint.getByteOffset());
+                    lineNumber[0] = checkpoint.getLineNumber();
+                    batchNumber[0] = checkpoint.getBatchNumber();
+                    lastOffset[0] = checkpoint.getByteOffset();
+                });
             }
 
             List<Game> gamesBatch = new ArrayList<>(BATCH_SIZE);
+            Runnable commit = () -> {
+                batchNumber[0]++;
+                commitBatch(gamesBatch, dictionaries, stats, !checkpoints ? null
+                        : () -> checkpointService.save(CHECKPOINT_KEY, reader,
+                                lastOffset[0], lineNumber[0], batchNumber[0]));
+            };
+
+            ParallelCsvParser.parse(reader, threads, order,
+                    r -> {
+                        GameCsvRecord record = mapper.map(r);
+                        return record == null ? null : new ParsedRecord(record, r.position());
+                    },
+                    parsed -> {
+                        ImportProgress.checkCancelled();
+                        lineNumber[0]++;
+                        stats.incrementProcessed();
+                        processRecord(parsed.record(), lineNumber[0], stats, knownAppIds, dictionaries, gamesBatch);
+                        lastOffset[0] = parsed.endOffset();
+                        if (gamesBatch.size() >= BATCH_SIZE) {
+                            commit.run();
+                        }
+                    });
 
-            for (int i = 0; i < records.size(); i++) {
-                GameCsvRecord record = records.get(i);
+            System.out.printf("📄 Total de registros leídos: %,d%n", stats.getProcessed());
 
-                try {
-                    // Validar registro mínimo
-                    if (record.getAppId() == null || record.getAppId().trim().isEmpty()) {
-                        stats.incrementSkipped();
-                        continue;
-                    }
+            if (!gamesBatch.isEmpty()) {
+                commit.run();
+            }
+            registerDryRunGames(knownAppIds);
 
-                    // Parsear appId
-                    Long appId = parseAppId(record.getAppId());
-                    if (appId == null) {
-                        System.err.printf("⚠️  Línea %d: appId inválido: %s%n",
-                                i + 2, record.getAppId()); // +2 para contar header
-                        stats.incrementSkipped();
-                        continue;
-                    }
+            if (stats.getProcessed() == 0) {
+                System.out.println("⚠️  No se encontraron registros en el CSV");
+            } else {
+                printFinalStatistics(stats, startTime);
+            }
 
-                    // Verificar si ya existe
-                    if (gameRepo.existsByAppId(appId)) {
-                        if (stats.getSkipped() % 1000 == 0) {
-                            System.out.printf("⏭️  Juego %d ya existe, saltando...%n", appId);
-                        }
-                        stats.incrementSkipped();
-                        continue;
-                    }
+            checkpointService.clear(CHECKPOINT_KEY);
 
-                    // Crear juego desde el record
-                    Game game = createGameFromRecord(record, appId);
+        } catch (Exception e) {
+            System.err.println("❌ Error crítico durante la importación: " + e.getMessage());
+            e.printStackTrace();
+            throw e;
+        } finally {
+            entityManager.clear();
+        }
 
-                    // Procesar relaciones
-                    processGameRelations(game, record, stats);
+        return stats;
+    }
 
-                    gamesBatch.add(game);
-                    stats.incrementCreated();
+    private boolean isUpsertMode() {
+        return "upsert".equalsIgnoreCase(gameMode.trim());
+    }
 
-                    // Mostrar progreso
-                    if (stats.getCreated() % 1000 == 0) {
-                        System.out.printf("✅ %,d juegos creados...%n", stats.getCreated());
-                    }
+    /**
+     * appIds que processRecord debe saltar. En modo upsert los juegos existentes se
+     * reescriben, así que el conjunto empieza vacío y solo filtra duplicados del archivo.
+     */
+    private LongHashSet loadKnownAppIds() {
+        if (DryRun.isActive()) {
+            System.out.println("🧪 Dry run: sin juegos de la BD, solo se filtran los repetidos del archivo");
+            return new LongHashSet();
+        }
+        if (isUpsertMode()) {
+            System.out.println("🔁 Modo upsert: los juegos existentes se reemplazan con los datos del archivo");
+            return new LongHashSet();
+        }
+        LongHashSet knownAppIds = gameRepo.findAllAppIds();
+        System.out.printf("🔍 Juegos existentes en BD: %,d%n", knownAppIds.size());
+        return knownAppIds;
+    }
 
-                    // Guardar batch
-                    if (gamesBatch.size() >= BATCH_SIZE) {
-                        saveBatch(gamesBatch, stats);
-                        gamesBatch.clear();
+    /**
+     * En un dry run, knownAppIds empezó vacío y ahora contiene justo los appIds admitidos:
+     * los satélites del mismo plan los usan en lugar de la tabla games.
+     */
+    private void registerDryRunGames(LongHashSet knownAppIds) {
+        if (DryRun.isActive()) {
+            DryRun.registerGames(knownAppIds);
+        }
+    }
+
+    // =================================================================
+    // IMPORTACIÓN DELTA
+    // =================================================================
+
+    private boolean isDeltaMode() {
+        return "delta".equalsIgnoreCase(gameMode.trim());
+    }
+
+    /**
+     * Importación incremental en una sola pasada. Cada fila se resume en un hash de 64
+     * bits de sus bytes (game_row_hash); si coincide con el guardado la fila no se
+     * decodifica. Solo se escriben:
+     * <ul>
+     *     <li>altas: appIds que no están en games (INSERT con sus relaciones),</li>
+     *     <li>cambios: hash distinto o sin hash (UPDATE y relaciones de steam.csv reescritas),</li>
+     *     <li>bajas: juegos de la BD que ya no aparecen en el archivo, con todas sus filas satélite.</li>
+     * </ul>
+     * La primera pasada tras una importación normal no tiene hashes y actualiza todos los
+     * juegos una vez; a partir de ahí solo se toca lo que cambia. No usa checkpoints: el
+     * trabajo ya es proporcional a los cambios y las bajas necesitan ver el archivo entero.
+     */
+    private CsvImportStatisticsDto importDelta(MappedCsvReader reader, int threads,
+                                               ParallelCsvParser.Order order) throws Exception {
+        long startTime = System.currentTimeMillis();
+        CsvImportStatisticsDto stats = new CsvImportStatisticsDto();
+        ImportProgress.track(stats);
 
-                        // Limpiar entity manager
-                        entityManager.flush();
-                        entityManager.clear();
+        System.out.printf("🚀 IMPORTACIÓN DELTA DE JUEGOS (parseo paralelo: %d hilos, orden %s) 🚀%n",
+                threads, order);
 
-                        // Limpiar caches periódicamente
-                        if (stats.getCreated() % CACHE_CLEAN_INTERVAL == 0) {
-                            clearCaches();
-                            System.out.println("🧹 Caches limpiados");
+        LookupDictionaryService.Dictionaries dictionaries = lookupDictionaryService.load(stats);
+        LongHashSet existingGames = gameRepo.findAllAppIds();
+        LongLongHashMap storedHashes = rowHashStore.loadAll();
+        System.out.printf("🔍 Juegos en BD: %,d | hashes de la importación anterior: %,d%n",
+                existingGames.size(), storedHashes.size());
+
+        try {
+            String[] header = reader.readNext();
+            MappedRecordMapper mapper = MappedRecordMapper.forHeader(header);
+
+            LongHashSet seen = new LongHashSet(existingGames.size());
+            DeltaBatch batch = new DeltaBatch();
+            int[] lineNumber = {1}; // cabecera
+            int[] unreadableAppIds = {0};
+
+            // storedHashes no se modifica durante el parseo, así que los hilos del pool lo leen sin bloqueo
+            ParallelCsvParser.parse(reader, threads, order,
+                    r -> mapper.mapIfChanged(r, storedHashes),
+                    row -> {
+                        ImportProgress.checkCancelled();
+                        lineNumber[0]++;
+                        stats.incrementProcessed();
+
+                        // Sin appId legible no se sabe qué juego es: impide las bajas de esta pasada
+                        if (row.skip() == SkipReason.INVALID_APP_ID) {
+                            unreadableAppIds[0]++;
+                            stats.incrementSkipped(SkipReason.INVALID_APP_ID);
+                            return;
+                        }
+                        // Repetido en el archivo, sin cambios o no válido: nada que escribir
+                        if (!seen.add(row.appId())) {
+                            stats.incrementSkipped(SkipReason.DUPLICATE);
+                            return;
+                        }
+                        if (row.skip() != null) {
+                            stats.incrementSkipped(row.skip());
+                            return;
                         }
-                    }
 
-                } catch (Exception e) {
-                    stats.incrementSkipped();
-                    System.err.printf("❌ Error procesando línea %d: %s%n",
-                            i + 2, e.getMessage());
-                    // Log detallado solo para los primeros errores
-                    if (i < 5) {
-                        e.printStackTrace();
-                    }
-                }
+                        try {
+                            Game game = createGameFromRecord(row.record(), row.appId());
+                            processGameRelations(game, row.record(), dictionaries, stats);
+                            if (existingGames.contains(row.appId())) {
+                                batch.updates.add(game);
+                                stats.incrementUpdated();
+                            } else {
+                                batch.inserts.add(game);
+                                stats.incrementCreated();
+                            }
+                            batch.addHash(row.appId(), row.hash());
+                        } catch (Exception e) {
+                            stats.incrementSkipped(SkipReason.PROCESSING_ERROR);
+                            System.err.printf("❌ Error procesando línea %d: %s%n", lineNumber[0], e.getMessage());
+                        }
+
+                        if (batch.size() >= BATCH_SIZE) {
+                            commitDelta(batch, dictionaries, stats);
+                        }
+                    });
+
+            if (batch.size() > 0) {
+                commitDelta(batch, dictionaries, stats);
             }
 
-            // Guardar batch final
-            if (!gamesBatch.isEmpty()) {
-                saveBatch(gamesBatch, stats);
+            if (seen.isEmpty()) {
+                System.out.println("⚠️  No se encontraron registros en el CSV: no se borra ningún juego");
+            } else if (unreadableAppIds[0] > 0) {
+                System.out.printf("⚠️  %,d filas sin appId legible: no se borra ningún juego%n", unreadableAppIds[0]);
+            } else {
+                deleteMissingGames(existingGames, seen, stats);
             }
 
-            // Estadísticas finales
-            printFinalStatistics(stats, startTime);
+            System.out.printf("📊 Delta: %,d altas | %,d cambios | %,d bajas | %,d sin cambios o saltados | %.2fs%n",
+                    stats.getCreated(), stats.getUpdated(), stats.getDeleted(), stats.getSkipped(),
+                    (System.currentTimeMillis() - startTime) / 1000.0);
 
         } catch (Exception e) {
-            System.err.println("❌ Error crítico durante la importación: " + e.getMessage());
+            System.err.println("❌ Error crítico durante la importación delta: " + e.getMessage());
             e.printStackTrace();
             throw e;
-        } finally {
-            clearAllCaches();
-            entityManager.clear();
         }
 
         return stats;
     }
 
+    /**
+     * Altas y cambios pendientes de escribir, con los hashes que hay que guardar.
+     */
+    private static final class DeltaBatch {
+        final List<Game> inserts = new ArrayList<>(BATCH_SIZE);
+        final List<Game> updates = new ArrayList<>(BATCH_SIZE);
+        final long[] appIds = new long[BATCH_SIZE];
+        final long[] hashes = new long[BATCH_SIZE];
+        int hashCount;
+
+        void addHash(long appId, long hash) {
+            appIds[hashCount] = appId;
+            hashes[hashCount] = hash;
+            hashCount++;
+        }
+
+        int size() {
+            return inserts.size() + updates.size();
+        }
+
+        void clear() {
+            inserts.clear();
+            updates.clear();
+            hashCount = 0;
+        }
+    }
+
+    /**
+     * Escribe altas, cambios y sus hashes en una transacción: si falla, ningún hash
+     * avanza y la próxima importación delta vuelve a intentarlo.
+     */
+    private void commitDelta(DeltaBatch batch, LookupDictionaryService.Dictionaries dictionaries,
+                             CsvImportStatisticsDto stats) {
+        long start = System.nanoTime();
+        ImportEvents.BatchFlush event = ImportEvents.BatchFlush.start();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                dictionaries.flushPending();
+                entityManager.flush(); // los lookups nuevos deben existir antes de referenciarlos
+                gameJdbcWriter.writeBatch(batch.inserts);
+                gameJdbcWriter.updateBatch(batch.updates);
+                rowHashStore.saveAll(batch.appIds, batch.hashes, batch.hashCount);
+            });
+            ImportProgress.recordBatch(System.nanoTime() - start, batch.size());
+            event.complete(stats, batch.size(), true);
+        } catch (Exception e) {
+            event.complete(stats, batch.size(), false);
+            System.err.printf("❌ Error en lote delta (%,d altas, %,d cambios): %s%n",
+                    batch.inserts.size(), batch.updates.size(), e.getMessage());
+            stats.addCreated(-batch.inserts.size());
+            stats.addUpdated(-batch.updates.size());
+            stats.addSkipped(SkipReason.WRITE_FAILED, batch.size());
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * Borra, en lotes, los juegos de la BD cuyo appId no aparece en el archivo, salvo que
+     * sean más de {@link #maxDeleteFraction} de los que hay.
+     */
+    private void deleteMissingGames(LongHashSet existingGames, LongHashSet seen, CsvImportStatisticsDto stats) {
+        int[] total = {0};
+        existingGames.forEach(appId -> {
+            if (!seen.contains(appId)) {
+                total[0]++;
+            }
+        });
+        long limit = (long) (existingGames.size() * maxDeleteFraction);
+        if (total[0] > limit) {
+            System.out.printf("⚠️  %,d de %,d juegos no están en el archivo (límite %,d): "
+                    + "no se borra ninguno, ¿archivo truncado?%n", total[0], existingGames.size(), limit);
+            return;
+        }
+
+        long[] missing = new long[BATCH_SIZE];
+        int[] count = {0};
+        existingGames.forEach(appId -> {
+            if (!seen.contains(appId)) {
+                missing[count[0]++] = appId;
+                if (count[0] == BATCH_SIZE) {
+                    deleteGames(missing, count[0], stats);
+                    count[0] = 0;
+                }
+            }
+        });
+        deleteGames(missing, count[0], stats);
+    }
+
+    private void deleteGames(long[] appIds, int count, CsvImportStatisticsDto stats) {
+        if (count == 0) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            gameJdbcWriter.deleteGames(appIds, count);
+            rowHashStore.deleteAll(appIds, count);
+        });
+        stats.addDeleted(count);
+        System.out.printf("🗑️  %,d juegos borrados (ya no están en el archivo)%n", count);
+    }
+
+    /**
+     * Fila vista en modo delta: appId y hash (salvo si el appId no se puede leer) y, si hay
+     * que escribirla, record; si no, skip dice por qué.
+     */
+    private record DeltaRow(long appId, long hash, GameCsvRecord record, SkipReason skip) {
+
+        static DeltaRow of(long appId, long hash, GameCsvRecord record) {
+            return new DeltaRow(appId, hash, record, record == null ? SkipReason.MALFORMED_ROW : null);
+        }
+
+        static DeltaRow skipped(long appId, long hash, SkipReason reason) {
+            return new DeltaRow(appId, hash, null, reason);
+        }
+    }
+
+    /**
+     * Registro parseado junto con el byte del archivo donde termina.
+     */
+    private record ParsedRecord(GameCsvRecord record, long endOffset) {
+    }
+
+    /**
+     * Guarda el lote en una transacción independiente junto con el checkpoint, si hay.
+     * Si falla, el lote entero cuenta como saltado y el checkpoint no avanza.
+     */
+    private void commitBatch(List<Game> gamesBatch, LookupDictionaryService.Dictionaries dictionaries,
+                             CsvImportStatisticsDto stats, Runnable checkpoint) {
+        if (DryRun.isActive()) {
+            // Sin escritura: solo se vacían el lote y los lookups pendientes
+            dictionaries.flushPending();
+            gamesBatch.clear();
+            return;
+        }
+        int created = stats.getCreated();
+        int skipped = stats.getSkipped();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                saveBatch(gamesBatch, dictionaries, stats);
+                entityManager.flush();
+                if (checkpoint != null) {
+                    checkpoint.run();
+                }
+            });
+        } catch (Exception e) {
+            System.err.printf("❌ Error confirmando lote de %,d juegos: %s%n", gamesBatch.size(), e.getMessage());
+            // saveBatch puede haber descontado ya parte del lote: se ajusta solo la diferencia
+            stats.addCreated(created - gamesBatch.size() - stats.getCreated());
+            stats.addSkipped(SkipReason.WRITE_FAILED, skipped + gamesBatch.size() - stats.getSkipped());
+        } finally {
+            gamesBatch.clear();
+        }
+    }
+
+    /**
+     * Convierte el registro actual de un {@link MappedCsvReader} en GameCsvRecord usando
+     * las mismas columnas que las anotaciones @CsvBindByName. Como CsvToBean, descarta
+     * (devuelve null) los registros sin appid o con una fecha que no es yyyy-MM-dd.
+     * No guarda estado mutable, así que se puede usar desde varios hilos.
+     */
+    private static final class MappedRecordMapper {
+        private static final String[] COLUMNS = {
+                "appid", "name", "release_date", "english", "developer", "publisher", "platforms",
+                "required_age", "categories", "genres", "steamspy_tags", "achievements",
+                "positive_ratings", "negative_ratings", "average_playtime", "median_playtime",
+                "owners", "price"
+        };
+
+        private final int[] index = new int[COLUMNS.length];
+
+        static MappedRecordMapper forHeader(String[] header) {
+            ImportEvents.HeaderValidation event = ImportEvents.HeaderValidation.start();
+            if (header == null) {
+                event.complete(null, false);
+                throw new IllegalArgumentException("CSV vacío: falta la cabecera");
+            }
+            MappedRecordMapper mapper = new MappedRecordMapper();
+            for (int c = 0; c < COLUMNS.length; c++) {
+                mapper.index[c] = -1;
+                for (int h = 0; h < header.length; h++) {
+                    if (COLUMNS[c].equalsIgnoreCase(header[h].trim())) {
+                        mapper.index[c] = h;
+                        break;
+                    }
+                }
+            }
+            event.complete(header, mapper.index[0] >= 0);
+            if (mapper.index[0] < 0) {
+                throw new IllegalArgumentException("La cabecera no tiene la columna obligatoria 'appid'");
+            }
+            return mapper;
+        }
+
+        GameCsvRecord map(MappedCsvReader reader) {
+            String appId = field(reader, 0);
+            if (appId == null || appId.isEmpty()) {
+                return null;
+            }
+            GameCsvRecord record = new GameCsvRecord();
+            record.setAppId(appId);
+            record.setTitle(field(reader, 1));
+            String releaseDate = field(reader, 2);
+            if (releaseDate != null && !releaseDate.isBlank()) {
+                try {
+                    record.setReleaseDate(LocalDate.parse(releaseDate.trim()));
+                } catch (DateTimeParseException e) {
+                    return null;
+                }
+            }
+            record.setEnglish(field(reader, 3));
+            record.setDevelopers(field(reader, 4));
+            record.setPublishers(field(reader, 5));
+            record.setPlatforms(field(reader, 6));
+            record.setRequiredAge(field(reader, 7));
+            record.setCategories(field(reader, 8));
+            record.setGenres(field(reader, 9));
+            record.setSteamspyTags(field(reader, 10));
+            record.setAchievements(field(reader, 11));
+            record.setPositiveRatings(field(reader, 12));
+            record.setNegativeRatings(field(reader, 13));
+            record.setAveragePlaytime(field(reader, 14));
+            record.setMedianPlaytime(field(reader, 15));
+            record.setOwners(field(reader, 16));
+            record.setPrice(field(reader, 17));
+            return record;
+        }
+
+        /**
+         * Para el modo delta: devuelve la fila sin decodificar si su hash coincide con el
+         * guardado (UNCHANGED) o marcada MALFORMED_ROW si ha cambiado pero no es válida; en
+         * los dos casos el appId cuenta como visto y no se borra. Sin appId legible la fila
+         * se marca INVALID_APP_ID.
+         */
+        DeltaRow mapIfChanged(MappedCsvReader reader, LongLongHashMap storedHashes) {
+            Long appId = index[0] < reader.fieldCount() ? reader.getLong(index[0]).orElse(null) : null;
+            if (appId == null) {
+                return DeltaRow.skipped(0, 0, SkipReason.INVALID_APP_ID);
+            }
+            long hash = reader.recordHash();
+            if (storedHashes.containsKey(appId) && storedHashes.get(appId, 0L) == hash) {
+                return DeltaRow.skipped(appId, hash, SkipReason.UNCHANGED);
+            }
+            return DeltaRow.of(appId, hash, map(reader));
+        }
+
+        private String field(MappedCsvReader reader, int column) {
+            int i = index[column];
+            return i >= 0 && i < reader.fieldCount() ? reader.getString(i) : null;
+        }
+    }
+
+    /**
+     * Procesa un registro de steam.csv: valida el appId y añade al lote el juego con sus
+     * relaciones. Guardar el lote cuando se llena es cosa de quien llama.
+     */
+    private void processRecord(GameCsvRecord record, int lineNumber, CsvImportStatisticsDto stats,
+                               LongHashSet knownAppIds, LookupDictionaryService.Dictionaries dictionaries,
+                               List<Game> gamesBatch) {
+        try {
+            Long appId = admitRecord(record, lineNumber, stats, knownAppIds);
+            if (appId == null) {
+                return;
+            }
+
+            // Crear juego desde el record
+            Game game = createGameFromRecord(record, appId);
+            addToBatch(new PendingGame(game, record, lineNumber), stats, dictionaries, gamesBatch);
+
+        } catch (Exception e) {
+            recordFailure(e, lineNumber, stats);
+        }
+    }
+
+    /**
+     * Valida el appId del registro y lo marca como visto.
+     * @return el appId, o null si el registro se salta (inválido, ya en BD o repetido)
+     */
+    private Long admitRecord(GameCsvRecord record, int lineNumber, CsvImportStatisticsDto stats,
+                             LongHashSet knownAppIds) {
+        // Validar registro mínimo
+        if (record.getAppId() == null || record.getAppId().trim().isEmpty()) {
+            stats.incrementSkipped(SkipReason.INVALID_APP_ID);
+            return null;
+        }
+
+        // Parsear appId
+        Long appId = parseAppId(record.getAppId());
+        if (appId == null) {
+            System.err.printf("⚠️  Línea %d: appId inválido: %s%n",
+                    lineNumber, record.getAppId());
+            stats.incrementSkipped(SkipReason.INVALID_APP_ID);
+            return null;
+        }
+
+        // Verificar si ya existe (en BD o repetido en el CSV)
+        if (!knownAppIds.add(appId)) {
+            if (stats.getSkipped() % 1000 == 0) {
+                System.out.printf("⏭️  Juego %d ya existe, saltando...%n", appId);
+            }
+            stats.incrementSkipped(SkipReason.DUPLICATE);
+            return null;
+        }
+        return appId;
+    }
+
+    /**
+     * Resuelve las relaciones del juego y lo añade al lote. Usa los diccionarios de
+     * lookups, así que siempre corre en un único hilo.
+     */
+    private void addToBatch(PendingGame pending, CsvImportStatisticsDto stats,
+                            LookupDictionaryService.Dictionaries dictionaries, List<Game> gamesBatch) {
+        try {
+            // Procesar relaciones
+            processGameRelations(pending.game(), pending.record(), dictionaries, stats);
+
+            gamesBatch.add(pending.game());
+            stats.incrementCreated();
+
+            // Mostrar progreso
+            if (stats.getCreated() % 1000 == 0) {
+                System.out.printf("✅ %,d juegos creados...%n", stats.getCreated());
+            }
+        } catch (Exception e) {
+            recordFailure(e, pending.lineNumber(), stats);
+        }
+    }
+
+    private void recordFailure(Exception e, int lineNumber, CsvImportStatisticsDto stats) {
+        stats.incrementSkipped(SkipReason.PROCESSING_ERROR);
+        System.err.printf("❌ Error procesando línea %d: %s%n",
+                lineNumber, e.getMessage());
+        // Log detallado solo para los primeros errores
+        if (stats.getProcessed() <= 5) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Registro con appId válido y nuevo, pendiente de crear el juego.
+     */
+    private record GameRow(long appId, GameCsvRecord record, int lineNumber) {
+    }
+
+    /**
+     * Juego creado a partir de un registro, pendiente de resolver sus relaciones.
+     */
+    private record PendingGame(Game game, GameCsvRecord record, int lineNumber) {
+    }
+
+    /**
+     * Lee hasta el siguiente registro con appId nuevo, contando y saltando los demás.
+     * @return null al acabar el archivo
+     */
+    private GameRow nextRecord(Iterator<GameCsvRecord> records, int[] lineNumber,
+                                   CsvImportStatisticsDto stats, LongHashSet knownAppIds) {
+        while (records.hasNext()) {
+            GameCsvRecord record = records.next();
+            ImportProgress.checkCancelled();
+            lineNumber[0]++;
+            stats.incrementProcessed();
+
+            // Mostrar información de las columnas del primer registro
+            if (stats.getProcessed() == 1) {
+                System.out.println("📋 Ejemplo de primer registro leído:");
+                System.out.printf("  appid: %s, name: %s%n",
+                        record.getAppId(),
+                        record.getTitle());
+            }
+
+            try {
+                Long appId = admitRecord(record, lineNumber[0], stats, knownAppIds);
+                if (appId != null) {
+                    return new GameRow(appId, record, lineNumber[0]);
+                }
+            } catch (Exception e) {
+                recordFailure(e, lineNumber[0], stats);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Crea el juego a partir del registro. Puede correr en un worker del pipeline.
+     */
+    private PendingGame buildGame(GameRow row, CsvImportStatisticsDto stats) {
+        try {
+            Game game = createGameFromRecord(row.record(), row.appId());
+            return new PendingGame(game, row.record(), row.lineNumber());
+        } catch (Exception e) {
+            recordFailure(e, row.lineNumber(), stats);
+            return null;
+        }
+    }
+
     private Long parseAppId(String appIdStr) {
         if (appIdStr == null || appIdStr.trim().isEmpty()) {
             return null;
@@ -272,11 +889,15 @@ public class GameCsvImporter {
         game.setOwnersMid(0);
     }
 
-    private void processGameRelations(Game game, GameCsvRecord record, CsvImportStatisticsDto stats) {
+    private void processGameRelations(Game game, GameCsvRecord record,
+                                      LookupDictionaryService.Dictionaries dictionaries,
+                                      CsvImportStatisticsDto stats) {
+        ImportEvents.LookupResolution event = ImportEvents.LookupResolution.start();
+
         // Desarrolladores
         if (record.getDevelopers() != null && !record.getDevelopers().trim().isEmpty()) {
             processMultiValueField(record.getDevelopers(), ";", name -> {
-                Developer dev = getOrCreateDeveloper(name, stats);
+                Developer dev = dictionaries.developers().resolve(name);
                 if (!game.getDevelopers().contains(dev)) {
                     game.getDevelopers().add(dev);
                 }
@@ -286,7 +907,7 @@ public class GameCsvImporter {
         // Editores
         if (record.getPublishers() != null && !record.getPublishers().trim().isEmpty()) {
             processMultiValueField(record.getPublishers(), ";", name -> {
-                Publisher pub = getOrCreatePublisher(name, stats);
+                Publisher pub = dictionaries.publishers().resolve(name);
                 if (!game.getPublishers().contains(pub)) {
                     game.getPublishers().add(pub);
                 }
@@ -296,7 +917,7 @@ public class GameCsvImporter {
         // Plataformas
         if (record.getPlatforms() != null && !record.getPlatforms().trim().isEmpty()) {
             processMultiValueField(record.getPlatforms(), ";", name -> {
-                Platform platform = getOrCreatePlatform(name, stats);
+                Platform platform = dictionaries.platforms().resolve(name);
                 if (!game.getPlatforms().contains(platform)) {
                     game.getPlatforms().add(platform);
                 }
@@ -309,7 +930,7 @@ public class GameCsvImporter {
             if (categories.length > 0) {
                 String categoryName = categories[0].trim();
                 if (!categoryName.isEmpty()) {
-                    Category category = getOrCreateCategory(categoryName, stats);
+                    Category category = dictionaries.categories().resolve(categoryName);
                     game.setCategory(category);
                 }
             }
@@ -318,12 +939,15 @@ public class GameCsvImporter {
         // Géneros
         if (record.getGenres() != null && !record.getGenres().trim().isEmpty()) {
             processMultiValueField(record.getGenres(), ";", name -> {
-                Genre genre = getOrCreateGenre(name, stats);
+                Genre genre = dictionaries.genres().resolve(name);
                 if (!game.getGenres().contains(genre)) {
                     game.getGenres().add(genre);
                 }
             });
         }
+
+        event.complete(stats, game.getDevelopers().size() + game.getPublishers().size()
+                + game.getPlatforms().size() + game.getGenres().size() + (game.getCategory() != null ? 1 : 0));
     }
 
     private void processMultiValueField(String fieldValue, String delimiter,
@@ -371,74 +995,23 @@ public class GameCsvImporter {
         }
     }
 
-    // Métodos getOrCreate (igual que antes, pero los incluyo por completitud)
-    private Developer getOrCreateDeveloper(String name, CsvImportStatisticsDto stats) {
-        return developerCache.computeIfAbsent(name, n -> {
-            Optional<Developer> existing = developerRepo.findByName(n);
-            if (existing.isPresent()) {
-                return existing.get();
-            } else {
-                stats.incrementDevelopersCreated();
-                return developerRepo.save(new Developer(n));
-            }
-        });
-    }
-
-    private Publisher getOrCreatePublisher(String name, CsvImportStatisticsDto stats) {
-        return publisherCache.computeIfAbsent(name, n -> {
-            Optional<Publisher> existing = publisherRepo.findByName(n);
-            if (existing.isPresent()) {
-                return existing.get();
-            } else {
-                stats.incrementPublishersCreated();
-                return publisherRepo.save(new Publisher(n));
-            }
-        });
-    }
-
-    private Platform getOrCreatePlatform(String name, CsvImportStatisticsDto stats) {
-        return platformCache.computeIfAbsent(name, n -> {
-            Optional<Platform> existing = platformRepo.findByName(n);
-            if (existing.isPresent()) {
-                return existing.get();
-            } else {
-                stats.incrementPlatformsCreated();
-                return platformRepo.save(new Platform(n));
-            }
-        });
-    }
-
-    private Category getOrCreateCategory(String name, CsvImportStatisticsDto stats) {
-        return categoryCache.computeIfAbsent(name, n -> {
-            Optional<Category> existing = categoryRepo.findByName(n);
-            if (existing.isPresent()) {
-                return existing.get();
-            } else {
-                stats.incrementCategoriesCreated();
-                return categoryRepo.save(new Category(n));
-            }
-        });
-    }
-
-    private Genre getOrCreateGenre(String name, CsvImportStatisticsDto stats) {
-        return genreCache.computeIfAbsent(name, n -> {
-            Optional<Genre> existing = genreRepo.findByName(n);
-            if (existing.isPresent()) {
-                return existing.get();
-            } else {
-                stats.incrementGenresCreated();
-                return genreRepo.save(new Genre(n));
-            }
-        });
-    }
-
-    private void saveBatch(List<Game> gamesBatch, CsvImportStatisticsDto stats) {
+    private void saveBatch(List<Game> gamesBatch, LookupDictionaryService.Dictionaries dictionaries,
+                           CsvImportStatisticsDto stats) {
         if (gamesBatch.isEmpty()) {
             return;
         }
 
         long batchStartTime = System.currentTimeMillis();
 
+        // Persistir primero los lookups nuevos del lote (un saveAll por tabla)
+        dictionaries.flushPending();
+
+        if ("jdbc".equalsIgnoreCase(gameWriter) || isUpsertMode()) {
+            saveBatchJdbc(gamesBatch, stats);
+            return;
+        }
+
+        ImportEvents.BatchFlush event = ImportEvents.BatchFlush.start();
         try {
             for (Game game : gamesBatch) {
                 try {
@@ -446,8 +1019,8 @@ public class GameCsvImporter {
                 } catch (Exception e) {
                     System.err.printf("❌ Error guardando juego %d (%s): %s%n",
                             game.getAppId(), game.getTitle(), e.getMessage());
-                    stats.setCreated(stats.getCreated() - 1);
-                    stats.incrementSkipped();
+                    stats.addCreated(-1);
+                    stats.incrementSkipped(SkipReason.WRITE_FAILED);
                 }
             }
 
@@ -458,6 +1031,8 @@ public class GameCsvImporter {
 
             System.out.printf("✅ Batch guardado: %,d juegos | Tiempo: %.2fs | Total creados: %,d%n",
                     gamesBatch.size(), batchSeconds, stats.getCreated());
+            ImportProgress.recordBatch((batchEndTime - batchStartTime) * 1_000_000L, gamesBatch.size());
+            event.complete(stats, gamesBatch.size(), true);
 
         } catch (Exception e) {
             System.err.printf("❌ Error crítico en batch: %s%n", e.getMessage());
@@ -476,8 +1051,34 @@ public class GameCsvImporter {
 
             // Ajustar estadísticas
             int failed = gamesBatch.size() - successfullySaved;
-            stats.setCreated(stats.getCreated() - failed);
-            stats.setSkipped(stats.getSkipped() + failed);
+            event.complete(stats, gamesBatch.size(), failed == 0);
+            stats.addCreated(-failed);
+            stats.addSkipped(SkipReason.WRITE_FAILED, failed);
+        }
+    }
+
+    /**
+     * Variante JDBC de saveBatch: INSERT multi-fila de juegos y relaciones sin merge de Hibernate
+     * (o upsert en modo upsert). Si el lote falla se contabiliza entero como saltado, igual
+     * que ImportPersistence.saveBatchAndClear.
+     */
+    private void saveBatchJdbc(List<Game> gamesBatch, CsvImportStatisticsDto stats) {
+        long start = System.nanoTime();
+        ImportEvents.BatchFlush event = ImportEvents.BatchFlush.start();
+        try {
+            entityManager.flush(); // los lookups nuevos deben existir antes de referenciarlos
+            if (isUpsertMode()) {
+                gameJdbcWriter.upsertBatch(gamesBatch);
+            } else {
+                gameJdbcWriter.writeBatch(gamesBatch);
+            }
+            ImportProgress.recordBatch(System.nanoTime() - start, gamesBatch.size());
+            event.complete(stats, gamesBatch.size(), true);
+        } catch (Exception e) {
+            event.complete(stats, gamesBatch.size(), false);
+            System.err.printf("❌ Error en batch JDBC de %,d juegos: %s%n", gamesBatch.size(), e.getMessage());
+            stats.addCreated(-gamesBatch.size());
+            stats.addSkipped(SkipReason.WRITE_FAILED, gamesBatch.size());
         }
     }
 
@@ -491,6 +1092,8 @@ public class GameCsvImporter {
         System.out.printf("Registros procesados:      %,d%n", stats.getProcessed());
         System.out.printf("Juegos creados:            %,d%n", stats.getCreated());
         System.out.printf("Registros saltados:        %,d%n", stats.getSkipped());
+        stats.getSkippedByReason().forEach((reason, count) ->
+                System.out.printf("  · %-22s  %,d%n", reason, count));
         System.out.printf("Desarrolladores creados:   %,d%n", stats.getDevelopersCreated());
         System.out.printf("Editores creados:          %,d%n", stats.getPublishersCreated());
         System.out.printf("Géneros creados:           %,d%n", stats.getGenresCreated());
@@ -503,6 +1106,12 @@ public class GameCsvImporter {
             System.out.printf("Velocidad:                 %.1f juegos/segundo%n", gamesPerSecond);
         }
 
+        if (DryRun.isActive()) {
+            System.out.println("🧪 Dry run: no se ha escrito nada en la BD");
+            System.out.println("=".repeat(70));
+            return;
+        }
+
         try {
             long totalInDB = gameRepo.count();
             System.out.printf("Total juegos en BD:        %,d%n", totalInDB);
@@ -517,17 +1126,4 @@ public class GameCsvImporter {
 
         System.out.println("=".repeat(70));
     }
-
-    private void clearCaches() {
-        developerCache.clear();
-        publisherCache.clear();
-        platformCache.clear();
-        categoryCache.clear();
-        genreCache.clear();
-    }
-
-    private void clearAllCaches() {
-        clearCaches();
-        entityManager.clear();
-    }
 }
\ No newline at end of file
@@ -1,13 +1,13 @@
 package com.paucasesnoves.steamAPI.modules.csv.service;
 
 import com.opencsv.bean.CsvToBean;
-import com.opencsv.bean.CsvToBeanBuilder;
-import com.opencsv.bean.HeaderColumnNameMappingStrategy;
 import com.paucasesnoves.steamAPI.modules.csv.dto.CsvImportStatisticsDto;
 import com.paucasesnoves.steamAPI.modules.csv.dto.GameCsvRecord;
+import com.paucasesnoves.steamAPI.modules.csv.dto.SkipReason;
 import com.paucasesnoves.steamAPI.modules.games.domain.*;
 import com.paucasesnoves.steamAPI.modules.games.repository.*;
 import com.paucasesnoves.steamAPI.utils.CsvUtils;
+import com.paucasesnoves.steamAPI.utils.LongHashSet;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,15 +28,7 @@ public class GameCsvImporter2 {
     @Autowired
     private GameRepository gameRepo;
     @Autowired
-    private DeveloperRepository developerRepo;
-    @Autowired
-    private PublisherRepository publisherRepo;
-    @Autowired
-    private PlatformRepository platformRepo;
-    @Autowired
-    private CategoryRepository categoryRepo;
-    @Autowired
-    private GenreRepository genreRepo;
+    private LookupDictionaryService lookupDictionaryService;
 
     @PersistenceContext
     private EntityManager entityManager;
@@ -50,57 +42,42 @@ public class GameCsvImporter2 {
 
         System.out.println("🚀 INICIANDO IMPORTACIÓN DE JUEGOS (Versión simplificada) 🚀");
 
-        try (Reader reader = new InputStreamReader(inputStream, "UTF-8")) {
-
-            // Configurar estrategia de mapeo por columnas
-            HeaderColumnNameMappingStrategy<GameCsvRecord> strategy =
-                    new HeaderColumnNameMappingStrategy<>();
-            strategy.setType(GameCsvRecord.class);
-
-            // Crear CsvToBean con configuración completa
-            CsvToBean<GameCsvRecord> csvToBean = new CsvToBeanBuilder<GameCsvRecord>(reader)
-                    .withMappingStrategy(strategy)
-                    .withIgnoreLeadingWhiteSpace(true)
-                    .withIgnoreEmptyLine(true)
-                    .withThrowExceptions(false)
-                    .build();
+        LookupDictionaryService.Dictionaries dictionaries = lookupDictionaryService.load(stats);
+        LongHashSet knownAppIds = gameRepo.findAllAppIds();
 
-            // Obtener todos los registros
-            List<GameCsvRecord> records = csvToBean.parse();
-            stats.setProcessed(records.size());
-
-            System.out.printf("📄 Total de registros leídos: %,d%n", records.size());
-
-            if (records.isEmpty()) {
-                System.out.println("⚠️  No se encontraron registros en el CSV");
-                return stats;
-            }
+        try (Reader reader = new InputStreamReader(inputStream, "UTF-8")) {
 
-            // Mostrar ejemplo del primer registro
-            GameCsvRecord first = records.get(0);
-            System.out.printf("📋 Ejemplo: appid=%s, name=%s%n",
-                    first.getAppId(), first.getTitle());
+            // Iterar los registros en streaming en lugar de cargarlos todos con parse()
+            CsvToBean<GameCsvRecord> csvToBean = CsvUtils.createBeanReader(reader, GameCsvRecord.class);
 
             // Procesar en batches
             List<Game> gamesBatch = new ArrayList<>(BATCH_SIZE);
 
-            for (GameCsvRecord record : records) {
+            for (GameCsvRecord record : csvToBean) {
+                stats.incrementProcessed();
+
+                // Mostrar ejemplo del primer registro
+                if (stats.getProcessed() == 1) {
+                    System.out.printf("📋 Ejemplo: appid=%s, name=%s%n",
+                            record.getAppId(), record.getTitle());
+                }
+
                 try {
                     // Validar appId
                     if (record.getAppId() == null || record.getAppId().trim().isEmpty()) {
-                        stats.incrementSkipped();
+                        stats.incrementSkipped(SkipReason.INVALID_APP_ID);
                         continue;
                     }
 
                     Long appId = parseAppId(record.getAppId());
                     if (appId == null) {
-                        stats.incrementSkipped();
+                        stats.incrementSkipped(SkipReason.INVALID_APP_ID);
                         continue;
                     }
 
-                    // Verificar si ya existe
-                    if (gameRepo.existsByAppId(appId)) {
-                        stats.incrementSkipped();
+                    // Verificar si ya existe (en BD o repetido en el CSV)
+                    if (!knownAppIds.add(appId)) {
+                        stats.incrementSkipped(SkipReason.DUPLICATE);
                         continue;
                     }
 
@@ -108,14 +85,14 @@ public class GameCsvImporter2 {
                     Game game = createGameFromRecord(record, appId);
 
                     // Procesar relaciones usando CsvUtils
-                    processRelationsWithUtils(game, record, stats);
+                    processRelationsWithUtils(game, record, dictionaries);
 
                     gamesBatch.add(game);
                     stats.incrementCreated();
 
                     // Guardar batch
                     if (gamesBatch.size() >= BATCH_SIZE) {
-                        saveBatch(gamesBatch, stats);
+                        saveBatch(gamesBatch, dictionaries, stats);
                         gamesBatch.clear();
                         entityManager.flush();
                         entityManager.clear();
@@ -127,16 +104,23 @@ public class GameCsvImporter2 {
                     }
 
                 } catch (Exception e) {
-                    stats.incrementSkipped();
+                    stats.incrementSkipped(SkipReason.PROCESSING_ERROR);
                     if (stats.getSkipped() < 10) {
                         System.err.printf("❌ Error: %s%n", e.getMessage());
                     }
                 }
             }
 
+            System.out.printf("📄 Total de registros leídos: %,d%n", stats.getProcessed());
+
+            if (stats.getProcessed() == 0) {
+                System.out.println("⚠️  No se encontraron registros en el CSV");
+                return stats;
+            }
+
             // Guardar batch final
             if (!gamesBatch.isEmpty()) {
-                saveBatch(gamesBatch, stats);
+                saveBatch(gamesBatch, dictionaries, stats);
             }
 
             // Estadísticas finales
@@ -184,38 +168,30 @@ public class GameCsvImporter2 {
     }
 
     /**
-     * 🎯 Versión MEJORADA usando CsvUtils.parseAndFindOrCreate
+     * 🎯 Versión MEJORADA usando CsvUtils.parseAndFindOrCreate sobre los diccionarios en memoria
      */
-    private void processRelationsWithUtils(Game game, GameCsvRecord record, CsvImportStatisticsDto stats) {
+    private void processRelationsWithUtils(Game game, GameCsvRecord record,
+                                           LookupDictionaryService.Dictionaries dictionaries) {
 
         // Desarrolladores
         game.setDevelopers(CsvUtils.parseAndFindOrCreate(
                 record.getDevelopers(),
-                developerRepo::findByName,
-                name -> {
-                    stats.incrementDevelopersCreated();
-                    return developerRepo.save(new Developer(name));
-                }
+                dictionaries.developers()::find,
+                dictionaries.developers()::create
         ));
 
         // Editores
         game.setPublishers(CsvUtils.parseAndFindOrCreate(
                 record.getPublishers(),
-                publisherRepo::findByName,
-                name -> {
-                    stats.incrementPublishersCreated();
-                    return publisherRepo.save(new Publisher(name));
-                }
+                dictionaries.publishers()::find,
+                dictionaries.publishers()::create
         ));
 
         // Plataformas
         game.setPlatforms(CsvUtils.parseAndFindOrCreate(
                 record.getPlatforms(),
-                platformRepo::findByName,
-                name -> {
-                    stats.incrementPlatformsCreated();
-                    return platformRepo.save(new Platform(name));
-                }
+                dictionaries.platforms()::find,
+                dictionaries.platforms()::create
         ));
 
         // Categorías - IMPORTANTE: Solo tomamos la primera para category principal
@@ -226,11 +202,8 @@ public class GameCsvImporter2 {
                 if (!categoryName.isEmpty()) {
                     Category category = CsvUtils.findOrCreate(
                             categoryName,
-                            categoryRepo::findByName,
-                            name -> {
-                                stats.incrementCategoriesCreated();
-                                return categoryRepo.save(new Category(name));
-                            }
+                            dictionaries.categories()::find,
+                            dictionaries.categories()::create
                     );
                     game.setCategory(category);
                 }
@@ -240,11 +213,8 @@ public class GameCsvImporter2 {
         // Géneros
         game.setGenres(CsvUtils.parseAndFindOrCreate(
                 record.getGenres(),
-                genreRepo::findByName,
-                name -> {
-                    stats.incrementGenresCreated();
-                    return genreRepo.save(new Genre(name));
-                }
+                dictionaries.genres()::find,
+                dictionaries.genres()::create
         ));
     }
 
@@ -303,7 +273,10 @@ public class GameCsvImporter2 {
         }
     }
 
-    private void saveBatch(List<Game> gamesBatch, CsvImportStatisticsDto stats) {
+    private void saveBatch(List<Game> gamesBatch, LookupDictionaryService.Dictionaries dictionaries,
+                           CsvImportStatisticsDto stats) {
+        // Los lookups nuevos deben tener id antes de guardar los juegos que los usan
+        dictionaries.flushPending();
         try {
             gameRepo.saveAll(gamesBatch);
             System.out.printf("✅ Batch guardado: %,d juegos | Total: %,d%n",
@@ -317,10 +290,10 @@ public class GameCsvImporter2 {
                     gameRepo.save(game);
                     saved++;
                 } catch (Exception ex) {
-                    stats.incrementSkipped();
+                    stats.incrementSkipped(SkipReason.WRITE_FAILED);
                 }
             }
-            stats.setCreated(stats.getCreated() - (gamesBatch.size() - saved));
+            stats.addCreated(-(gamesBatch.size() - saved));
         }
     }
 
@@ -0,0 +1,263 @@
+package com.paucasesnoves.steamAPI.modules.csv.service;
+
+import com.paucasesnoves.steamAPI.modules.games.domain.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Escritura directa por JDBC de juegos y sus tablas de relación.
+ *
+ * Game tiene @Id asignado (appId), así que save()/saveAll() lo tratan como merge y
+ * lanzan un SELECT antes de cada INSERT. Aquí se emiten INSERTs en batch que el driver
+ * reescribe como INSERT multi-fila gracias a rewriteBatchedStatements=true.
+ * Los lookups (géneros, plataformas...) deben estar persistidos y tener id.
+ */
+@Component
+public class GameJdbcWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(GameJdbcWriter.class);
+
+    private static final String INSERT_GAME =
+            "INSERT INTO games (app_id, title, release_date, english, min_age, achievements, " +
+            "positive_ratings, negative_ratings, avg_playtime, median_playtime, " +
+            "owners_lower, owners_upper, owners_mid, price, category_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_GAME =
+            "UPDATE games SET title = ?, release_date = ?, english = ?, min_age = ?, achievements = ?, " +
+            "positive_ratings = ?, negative_ratings = ?, avg_playtime = ?, median_playtime = ?, " +
+            "owners_lower = ?, owners_upper = ?, owners_mid = ?, price = ?, category_id = ? " +
+            "WHERE app_id = ?";
+
+    private static final String[] GAME_COLUMNS = {
+            "app_id", "title", "release_date", "english", "min_age", "achievements",
+            "positive_ratings", "negative_ratings", "avg_playtime", "median_playtime",
+            "owners_lower", "owners_upper", "owners_mid", "price", "category_id"
+    };
+    private static final String[] GAME_UPDATE_COLUMNS = Arrays.copyOfRange(GAME_COLUMNS, 1, GAME_COLUMNS.length);
+
+    // Relaciones que salen de steam.csv: se reescriben cuando cambia la fila del juego
+    private static final String[] DELETE_GAME_LINKS = {
+            "DELETE FROM game_genre WHERE game_id = ?",
+            "DELETE FROM game_platform WHERE game_id = ?",
+            "DELETE FROM game_developer WHERE game_id = ?",
+            "DELETE FROM game_publisher WHERE game_id = ?"
+    };
+
+    // Borrado completo de un juego: primero todo lo que lo referencia, al final la fila
+    private static final String[] DELETE_GAME_CASCADE = {
+            "DELETE FROM game_genre WHERE game_id = ?",
+            "DELETE FROM game_platform WHERE game_id = ?",
+            "DELETE FROM game_developer WHERE game_id = ?",
+            "DELETE FROM game_publisher WHERE game_id = ?",
+            "DELETE FROM game_tag WHERE game_id = ?",
+            "DELETE FROM game_media WHERE game_id = ?",
+            "DELETE FROM game_descriptions WHERE game_id = ?",
+            "DELETE FROM game_requirements WHERE game_id = ?",
+            "DELETE FROM game_support_info WHERE game_id = ?",
+            "DELETE FROM games WHERE app_id = ?"
+    };
+
+    private static final String INSERT_GAME_GENRE = "INSERT INTO game_genre (game_id, genre_id) VALUES (?, ?)";
+    private static final String INSERT_GAME_PLATFORM = "INSERT INTO game_platform (game_id, platform_id) VALUES (?, ?)";
+    private static final String INSERT_GAME_DEVELOPER = "INSERT INTO game_developer (game_id, developer_id) VALUES (?, ?)";
+    private static final String INSERT_GAME_PUBLISHER = "INSERT INTO game_publisher (game_id, publisher_id) VALUES (?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserta un lote de juegos y todas sus relaciones.
+     * @return número de filas de relación escritas
+     */
+    public int writeBatch(List<Game> games) {
+        if (games.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+
+        jdbcTemplate.batchUpdate(INSERT_GAME, games, games.size(), this::bindGame);
+
+        int links = 0;
+        links += writeLinks(INSERT_GAME_GENRE, games, Game::getGenres, Genre::getId);
+        links += writeLinks(INSERT_GAME_PLATFORM, games, Game::getPlatforms, Platform::getId);
+        links += writeLinks(INSERT_GAME_DEVELOPER, games, Game::getDevelopers, Developer::getId);
+        links += writeLinks(INSERT_GAME_PUBLISHER, games, Game::getPublishers, Publisher::getId);
+
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        log.info("⚡ Batch JDBC: {} juegos + {} relaciones | {}s | {} filas/s",
+                String.format("%,d", games.size()),
+                String.format("%,d", links),
+                String.format("%.3f", seconds),
+                String.format("%,.0f", seconds > 0 ? (games.size() + links) / seconds : 0));
+        return links;
+    }
+
+    /**
+     * Actualiza un lote de juegos existentes y reescribe sus relaciones de steam.csv
+     * (géneros, plataformas, desarrolladores y editores). Lo demás no se toca.
+     */
+    public void updateBatch(List<Game> games) {
+        if (games.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPDATE_GAME, games, games.size(), (ps, game) -> {
+            bindGameColumns(ps, game, 1);
+            ps.setLong(15, game.getAppId());
+        });
+        rewriteLinks(games);
+    }
+
+    /**
+     * Inserta o reemplaza un lote de juegos con un único INSERT ... ON DUPLICATE KEY UPDATE
+     * sobre app_id, sin comprobar antes cuáles existen, y reescribe sus relaciones de
+     * steam.csv. Tags, media y demás tablas satélite no se tocan.
+     */
+    public void upsertBatch(List<Game> games) {
+        if (games.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+
+        ImportPersistence.upsertBatch(jdbcTemplate, "games", GAME_COLUMNS, GAME_UPDATE_COLUMNS, games,
+                (ps, offset, game) -> {
+                    ps.setLong(offset + 1, game.getAppId());
+                    bindGameColumns(ps, game, offset + 2);
+                });
+        int links = rewriteLinks(games);
+
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        log.info("⚡ Upsert JDBC: {} juegos + {} relaciones | {}s",
+                String.format("%,d", games.size()),
+                String.format("%,d", links),
+                String.format("%.3f", seconds));
+    }
+
+    /**
+     * Borra y vuelve a escribir las relaciones de steam.csv de los juegos del lote.
+     * @return número de filas de relación escritas
+     */
+    private int rewriteLinks(List<Game> games) {
+        long[] appIds = games.stream().mapToLong(Game::getAppId).toArray();
+        for (String sql : DELETE_GAME_LINKS) {
+            deleteByGame(sql, appIds, appIds.length);
+        }
+        int links = 0;
+        links += writeLinks(INSERT_GAME_GENRE, games, Game::getGenres, Genre::getId);
+        links += writeLinks(INSERT_GAME_PLATFORM, games, Game::getPlatforms, Platform::getId);
+        links += writeLinks(INSERT_GAME_DEVELOPER, games, Game::getDevelopers, Developer::getId);
+        links += writeLinks(INSERT_GAME_PUBLISHER, games, Game::getPublishers, Publisher::getId);
+        return links;
+    }
+
+    /**
+     * Borra {@code count} juegos con todas sus filas satélite (media, descripciones,
+     * requisitos, soporte, tags y relaciones).
+     */
+    public void deleteGames(long[] appIds, int count) {
+        for (String sql : DELETE_GAME_CASCADE) {
+            deleteByGame(sql, appIds, count);
+        }
+    }
+
+    private void deleteByGame(String sql, long[] appIds, int count) {
+        if (count == 0) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, appIds[i]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return count;
+            }
+        });
+    }
+
+    private void bindGame(PreparedStatement ps, Game game) throws SQLException {
+        ps.setLong(1, game.getAppId());
+        bindGameColumns(ps, game, 2);
+    }
+
+    /**
+     * Columnas de games salvo app_id, en el orden de INSERT_GAME (y GAME_COLUMNS) y UPDATE_GAME
+     * a partir del parámetro {@code first}.
+     */
+    private void bindGameColumns(PreparedStatement ps, Game game, int first) throws SQLException {
+        int i = first;
+        ps.setString(i++, game.getTitle());
+        ps.setObject(i++, game.getReleaseDate());
+        ps.setBoolean(i++, game.isEnglish());
+        ps.setObject(i++, game.getMinAge(), Types.INTEGER);
+        ps.setObject(i++, game.getAchievements(), Types.INTEGER);
+        ps.setObject(i++, game.getPositiveRatings(), Types.INTEGER);
+        ps.setObject(i++, game.getNegativeRatings(), Types.INTEGER);
+        ps.setObject(i++, game.getAvgPlaytime(), Types.DOUBLE);
+        ps.setObject(i++, game.getMedianPlaytime(), Types.DOUBLE);
+        ps.setObject(i++, game.getOwnersLower(), Types.INTEGER);
+        ps.setObject(i++, game.getOwnersUpper(), Types.INTEGER);
+        ps.setObject(i++, game.getOwnersMid(), Types.INTEGER);
+        ps.setBigDecimal(i++, game.getPrice());
+        if (game.getCategory() != null) {
+            ps.setLong(i, game.getCategory().getId());
+        } else {
+            ps.setNull(i, Types.BIGINT);
+        }
+    }
+
+    /**
+     * Escribe las filas (game_id, lookup_id) de una tabla de relación en un único batch.
+     * Los pares se acumulan en un long[] plano para no crear objetos por fila.
+     */
+    private <T> int writeLinks(String sql, List<Game> games,
+                               Function<Game, Collection<T>> relation,
+                               ToLongFunction<T> idMapper) {
+        long[] pairs = new long[games.size() * 4];
+        int count = 0;
+        for (Game game : games) {
+            for (T lookup : relation.apply(game)) {
+                if (count * 2 + 1 >= pairs.length) {
+                    pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                }
+                pairs[count * 2] = game.getAppId();
+                pairs[count * 2 + 1] = idMapper.applyAsLong(lookup);
+                count++;
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        final long[] rows = pairs;
+        final int size = count;
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, rows[i * 2]);
+                ps.setLong(2, rows[i * 2 + 1]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return size;
+            }
+        });
+        return size;
+    }
+}
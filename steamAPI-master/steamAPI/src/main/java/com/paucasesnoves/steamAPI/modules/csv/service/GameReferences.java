@@ -0,0 +1,56 @@
+package com.paucasesnoves.steamAPI.modules.csv.service;
+
+import com.paucasesnoves.steamAPI.modules.games.domain.Game;
+import com.paucasesnoves.steamAPI.modules.games.repository.GameRepository;
+import com.paucasesnoves.steamAPI.utils.LongHashSet;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+
+/**
+ * Juegos a los que enlazar las filas de los importadores satélite.
+ * <p>
+ * Solo se preleen los appIds de games (una columna, unos pocos MB) y cada Game es un proxy
+ * de {@link EntityManager#getReference}: para escribir la clave ajena basta con el id, así
+ * que no se hidrata ningún juego ni sus relaciones. En un dry run los appIds son los del
+ * {@link DryRun} y cada juego es una instancia sin persistir.
+ * <p>
+ * Las referencias se piden desde el hilo lector del importador.
+ */
+final class GameReferences {
+
+    private static final Logger log = LoggerFactory.getLogger(GameReferences.class);
+
+    private final LongPredicate exists;
+    private final LongFunction<Game> reference;
+
+    private GameReferences(LongPredicate exists, LongFunction<Game> reference) {
+        this.exists = exists;
+        this.reference = reference;
+    }
+
+    static GameReferences load(GameRepository gameRepo, EntityManager entityManager) {
+        if (DryRun.isActive()) {
+            return new GameReferences(DryRun.gameExists(), GameReferences::standIn);
+        }
+        LongHashSet appIds = gameRepo.findAllAppIds();
+        log.info("📦 Juegos precargados: {} appIds", appIds.size());
+        return new GameReferences(appIds::contains, appId -> entityManager.getReference(Game.class, appId));
+    }
+
+    /**
+     * Juego del appId, o null si no está en games.
+     */
+    Game get(long appId) {
+        return exists.test(appId) ? reference.apply(appId) : null;
+    }
+
+    private static Game standIn(long appId) {
+        Game game = new Game();
+        game.setAppId(appId);
+        return game;
+    }
+}
@@ -0,0 +1,76 @@
+package com.paucasesnoves.steamAPI.modules.csv.service;
+
+import com.paucasesnoves.steamAPI.utils.LongLongHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Acceso por JDBC a la tabla game_row_hash (appId → hash de la fila de origen).
+ */
+@Component
+public class GameRowHashStore {
+
+    private static final String UPSERT_HASH =
+            "INSERT INTO game_row_hash (app_id, row_hash) VALUES (?, ?) " +
+            "ON DUPLICATE KEY UPDATE row_hash = VALUES(row_hash)";
+    private static final String DELETE_HASH = "DELETE FROM game_row_hash WHERE app_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Carga todos los hashes en un mapa primitivo (16 bytes por juego más la tabla).
+     */
+    public LongLongHashMap loadAll() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM game_row_hash", Integer.class);
+        LongLongHashMap hashes = new LongLongHashMap(count != null ? count : 0);
+        jdbcTemplate.query("SELECT app_id, row_hash FROM game_row_hash",
+                (RowCallbackHandler) rs -> hashes.put(rs.getLong(1), rs.getLong(2)));
+        return hashes;
+    }
+
+    /**
+     * Guarda (o sustituye) los hashes de {@code count} juegos. Se llama dentro de la
+     * transacción del lote que escribe esos juegos.
+     */
+    public void saveAll(long[] appIds, long[] hashes, int count) {
+        if (count == 0) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_HASH, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, appIds[i]);
+                ps.setLong(2, hashes[i]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return count;
+            }
+        });
+    }
+
+    public void deleteAll(long[] appIds, int count) {
+        if (count == 0) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(DELETE_HASH, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, appIds[i]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return count;
+            }
+        });
+    }
+}
@@ -0,0 +1,96 @@
+package com.paucasesnoves.steamAPI.modules.csv.service;
+
+import com.paucasesnoves.steamAPI.modules.csv.domain.ImportCheckpoint;
+import com.paucasesnoves.steamAPI.modules.csv.repository.ImportCheckpointRepository;
+import com.paucasesnoves.steamAPI.utils.MappedCsvReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Checkpoints de importación (tabla import_checkpoint).
+ * <p>
+ * El checkpoint se escribe en la misma transacción que el lote que confirma, así que
+ * tras una caída apunta siempre al último lote realmente guardado. Solo se usa cuando
+ * el archivo se lee mapeado en memoria: es la única forma de conocer el byte exacto
+ * donde acaba cada registro y de saltar directamente a él al reanudar.
+ */
+@Service
+public class ImportCheckpointService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportCheckpointService.class);
+
+    @Autowired
+    private ImportCheckpointRepository checkpointRepo;
+
+    @Value("${steam.import.checkpoints:true}")
+    private boolean enabled;
+
+    /**
+     * Desactivados también en un dry run: no hay lotes guardados que marcar.
+     */
+    public boolean isEnabled() {
+        return enabled && !DryRun.isActive();
+    }
+
+    /**
+     * Checkpoint desde el que reanudar, si existe y es del mismo archivo: mismo tamaño,
+     * misma fecha de modificación y mismo hash de los primeros 64 KB. Con solo el tamaño,
+     * un volcado nuevo que casualmente midiera lo mismo se reanudaría a mitad de un
+     * registro. Uno de otro archivo se borra.
+     */
+    @Transactional
+    public Optional<ImportCheckpoint> findResumable(String importer, MappedCsvReader file) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+        Optional<ImportCheckpoint> checkpoint = checkpointRepo.findById(importer);
+        if (checkpoint.isPresent() && !sameFile(checkpoint.get(), file)) {
+            log.warn("⚠️ Checkpoint de {} descartado: el archivo ha cambiado ({} → {} bytes, modificado {} → {})",
+                    importer, checkpoint.get().getFileSize(), file.size(),
+                    checkpoint.get().getLastModified(), file.lastModified());
+            checkpointRepo.delete(checkpoint.get());
+            return Optional.empty();
+        }
+        checkpoint.ifPresent(cp -> log.info("♻️ Reanudando {} desde el lote {}: línea {}, byte {}",
+                importer, cp.getBatchNumber(), String.format("%,d", cp.getLineNumber()),
+                String.format("%,d", cp.getByteOffset())));
+        return checkpoint;
+    }
+
+    /**
+     * Registra el lote recién escrito. Tiene que llamarse dentro de la transacción del
+     * lote para que ambos se confirmen (o se deshagan) juntos.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void save(String importer, MappedCsvReader file, long byteOffset, int lineNumber, int batchNumber) {
+        checkpointRepo.save(new ImportCheckpoint(importer, file.size(), file.lastModified(), file.headHash(),
+                byteOffset, lineNumber, batchNumber));
+    }
+
+    private static boolean sameFile(ImportCheckpoint checkpoint, MappedCsvReader file) {
+        return checkpoint.getFileSize() == file.size()
+                && checkpoint.getLastModified() == file.lastModified()
+                && checkpoint.getHeadHash() == file.headHash();
+    }
+
+    /**
+     * La importación terminó entera: la próxima vez se empieza desde el principio.
+     */
+    @Transactional
+    public void clear(String importer) {
+        if (DryRun.isActive()) {
+            return;
+        }
+        if (checkpointRepo.existsById(importer)) {
+            checkpointRepo.deleteById(importer);
+            log.info("🧹 Checkpoint de {} eliminado: importación completa", importer);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.paucasesnoves.steamAPI.modules.csv.service;
+
+import com.paucasesnoves.steamAPI.modules.csv.dto.CsvImportStatisticsDto;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.function.Predicate;
+
+/**
+ * Eventos de Java Flight Recorder de las etapas de importación.
+ * <p>
+ * Cada evento abarca el tiempo de la etapa, así que en una grabación JFR las pausas de GC,
+ * los bloqueos y las muestras de CPU/asignación que caen dentro se atribuyen a esa etapa.
+ * Todos llevan el importador, el tamaño del lote y el rango de filas (ordinales de las filas
+ * de datos leídas en esta importación; 0 es la cabecera).
+ * <p>
+ * Uso: {@code begin()} al empezar la etapa y {@code complete(...)} al acabar. Sin grabación
+ * activa {@code shouldCommit()} es falso y no se rellena ningún campo.
+ */
+public final class ImportEvents {
+
+    private ImportEvents() {
+    }
+
+    @Category({"SteamAPI", "Importación CSV"})
+    @StackTrace(false)
+    abstract static class StageEvent extends Event {
+
+        @Label("Importador")
+        String importer;
+
+        @Label("Tamaño del lote")
+        int batchSize;
+
+        @Label("Primera fila")
+        long firstRow;
+
+        @Label("Última fila")
+        long lastRow;
+
+        /**
+         * Cierra el evento y, si la grabación lo pide, lo emite.
+         */
+        final boolean emit(int batchSize, long firstRow, long lastRow) {
+            end();
+            if (!shouldCommit()) {
+                return false;
+            }
+            this.importer = ImportProgress.currentImporter();
+            this.batchSize = batchSize;
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+            return true;
+        }
+    }
+
+    @Name("com.paucasesnoves.steamAPI.csv.BatchFlush")
+    @Label("Escritura de lote")
+    @Description("Guardado de un lote en la BD (save + flush + clear o batch JDBC)")
+    public static final class BatchFlush extends StageEvent {
+
+        @Label("Correcto")
+        boolean succeeded;
+
+        public static BatchFlush start() {
+            BatchFlush event = new BatchFlush();
+            event.begin();
+            return event;
+        }
+
+        /**
+         * Cierra el lote: cubre las filas leídas desde el lote anterior hasta ahora.
+         */
+        public void complete(CsvImportStatisticsDto stats, int size, boolean ok) {
+            long lastRow = stats.getProcessed();
+            long firstRow = stats.advanceFlushedRow(lastRow) + 1;
+            if (emit(size, firstRow, lastRow)) {
+                this.succeeded = ok;
+                commit();
+            }
+        }
+    }
+
+    @Name("com.paucasesnoves.steamAPI.csv.HeaderValidation")
+    @Label("Validación de cabecera")
+    public static final class HeaderValidation extends StageEvent {
+
+        @Label("Columnas")
+        int columns;
+
+        @Label("Válida")
+        boolean valid;
+
+        public static HeaderValidation start() {
+            HeaderValidation event = new HeaderValidation();
+            event.begin();
+            return event;
+        }
+
+        /**
+         * Valida la cabecera con {@code check} (las comprobaciones de CsvUtils) y registra el evento.
+         */
+        public static boolean validate(String[] header, Predicate<String[]> check) {
+            HeaderValidation event = start();
+            boolean valid = check.test(header);
+            event.complete(header, valid);
+            return valid;
+        }
+
+        public void complete(String[] header, boolean valid) {
+            if (emit(0, 0, 0)) {
+                this.columns = header != null ? header.length : 0;
+                this.valid = valid;
+                commit();
+            }
+        }
+    }
+
+    @Name("com.paucasesnoves.steamAPI.csv.MediaJsonParse")
+    @Label("Parseo JSON de media")
+    @Description("Parseo de las columnas de screenshots y movies de una fila de media")
+    public static final class MediaJsonParse extends StageEvent {
+
+        @Label("Caracteres JSON")
+        int jsonLength;
+
+        @Label("Screenshots")
+        int screenshots;
+
+        @Label("Vídeos")
+        int movies;
+
+        public static MediaJsonParse start() {
+            MediaJsonParse event = new MediaJsonParse();
+            event.begin();
+            return event;
+        }
+
+        public void complete(CsvImportStatisticsDto stats, int jsonLength, int screenshots, int movies) {
+            long row = stats.getProcessed();
+            if (emit(1, row, row)) {
+                this.jsonLength = jsonLength;
+                this.screenshots = screenshots;
+                this.movies = movies;
+                commit();
+            }
+        }
+    }
+
+    @Name("com.paucasesnoves.steamAPI.csv.LookupResolution")
+    @Label("Resolución de lookups")
+    @Description("Traducción de nombres (géneros, desarrolladores, tags...) a entidades de lookup")
+    public static final class LookupResolution extends StageEvent {
+
+        @Label("Valores resueltos")
+        int lookups;
+
+        public static LookupResolution start() {
+            LookupResolution event = new LookupResolution();
+            event.begin();
+            return event;
+        }
+
+        /**
+         * Lookups de una fila de datos.
+         */
+        public void complete(CsvImportStatisticsDto stats, int lookups) {
+            long row = stats.getProcessed();
+            if (emit(1, row, row)) {
+                this.lookups = lookups;
+                commit();
+            }
+        }
+
+        /**
+         * Lookups que salen de la cabecera (p.ej. una columna por tag).
+         */
+        public void completeHeader(int lookups) {
+            if (emit(lookups, 0, 0)) {
+                this.lookups = lookups;
+                commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.paucasesnoves.steamAPI.modules.csv.service;
+
+import com.paucasesnoves.steamAPI.modules.csv.dto.CsvImportResultDto;
+import com.paucasesnoves.steamAPI.modules.csv.dto.ImportJobDto;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Importación lanzada en segundo plano. Agrupa el progreso de cada importador
+ * y el resultado final, y permite pedir la cancelación. Un job en seco (dry run)
+ * solo valida los archivos, sin tocar la BD.
+ */
+public class ImportJob {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String dataset;
+    private final boolean dryRun;
+    private final Instant submittedAt = Instant.now();
+    private final AtomicBoolean cancelRequested = new AtomicBoolean();
+    private final List<ImportProgress> importers = new CopyOnWriteArrayList<>();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile CsvImportResultDto result;
+    private volatile String error;
+
+    public ImportJob(String dataset) {
+        this(dataset, false);
+    }
+
+    public ImportJob(String dataset, boolean dryRun) {
+        this.dataset = dataset;
+        this.dryRun = dryRun;
+    }
+
+    /**
+     * Registra un importador que empieza dentro de este job.
+     */
+    ImportProgress startImporter(String importer, long totalBytes, LongSupplier bytesRead) {
+        ImportProgress progress = new ImportProgress(importer, totalBytes, bytesRead, cancelRequested);
+        importers.add(progress);
+        return progress;
+    }
+
+    /**
+     * Pide la cancelación. Los importadores la comprueban en cada línea.
+     * @return false si el job ya había terminado
+     */
+    public boolean requestCancel() {
+        if (isFinished()) {
+            return false;
+        }
+        cancelRequested.set(true);
+        return true;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested.get();
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED || status == Status.CANCELLED;
+    }
+
+    void markRunning() {
+        this.startedAt = Instant.now();
+        this.status = Status.RUNNING;
+    }
+
+    void markFinished(CsvImportResultDto result) {
+        this.result = result;
+        this.finishedAt = Instant.now();
+        this.status = cancelRequested.get() ? Status.CANCELLED : Status.COMPLETED;
+    }
+
+    void markFailed(Exception e) {
+        this.error = e.getMessage();
+        this.finishedAt = Instant.now();
+        this.status = cancelRequested.get() ? Status.CANCELLED : Status.FAILED;
+    }
+
+    public String getId() { return id; }
+    public String getDataset() { return dataset; }
+    public boolean isDryRun() { return dryRun; }
+    public Status getStatus() { return status; }
+    public CsvImportResultDto getResult() { return result; }
+    public String getError() { return error; }
+
+    public ImportJobDto toDto() {
+        ImportJobDto dto = new ImportJobDto();
+        dto.setId(id);
+        dto.setDataset(dataset);
+        dto.setDryRun(dryRun);
+        dto.setStatus(status.name());
+        dto.setCancelRequested(cancelRequested.get());
+        dto.setSubmittedAt(submittedAt.toString());
+        dto.setStartedAt(startedAt != null ? startedAt.toString() : null);
+        dto.setFinishedAt(finishedAt != null ? finishedAt.toString() : null);
+        dto.setImporters(importers.stream().map(ImportProgress::snapshot).toList());
+        dto.setResult(result);
+        dto.setError(error);
+        return dto;
+    }
+}
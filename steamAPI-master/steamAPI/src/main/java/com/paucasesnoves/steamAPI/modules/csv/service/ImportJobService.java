@@ -0,0 +1,230 @@
+package com.paucasesnoves.steamAPI.modules.csv.service;
+
+import com.paucasesnoves.steamAPI.modules.csv.dto.CsvImportResultDto;
+import com.paucasesnoves.steamAPI.modules.csv.dto.ImportJobDto;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Lanza importaciones en segundo plano para no bloquear hilos de Tomcat.
+ * Solo se admite un job activo por dataset ("all" solapa con todos los demás); los
+ * jobs en seco (dry run) no escriben y pueden correr junto a cualquier otro.
+ */
+@Service
+public class ImportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportJobService.class);
+    private static final int MAX_FINISHED_JOBS = 20;
+
+    @Autowired
+    private CsvImportService csvImportService;
+
+    // Frecuencia de los eventos SSE: el progreso se muestrea, nunca se empuja desde el bucle de importación
+    @Value("${steam.import.progress-interval-ms:1000}")
+    private long progressIntervalMs;
+
+    private final Map<String, ImportJob> jobs = new LinkedHashMap<>();
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    private final ExecutorService jobExecutor = Executors.newCachedThreadPool(
+            runnable -> new Thread(runnable, "import-job-" + threadCounter.incrementAndGet()));
+    private final ScheduledExecutorService progressScheduler = Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+                Thread thread = new Thread(runnable, "import-progress");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * Registra y arranca un job.
+     * @throws IllegalArgumentException si el dataset no existe
+     * @throws IllegalStateException si ya hay un job activo para ese dataset
+     */
+    public synchronized ImportJob submit(String dataset) {
+        return submit(dataset, false);
+    }
+
+    /**
+     * Como {@link #submit(String)}; con dryRun solo se validan los archivos.
+     */
+    public synchronized ImportJob submit(String dataset, boolean dryRun) {
+        ImportJob job = register(dataset, dryRun);
+        jobExecutor.submit(() -> run(job));
+        log.info("📥 Job {} encolado para dataset '{}'{}", job.getId(), dataset, dryRun ? " (dry run)" : "");
+        return job;
+    }
+
+    /**
+     * Importa un archivo subido en el hilo de la petición: el cuerpo solo se puede leer
+     * mientras la petición sigue abierta, así que no pasa por el executor. El job se
+     * registra igual que los demás para poder seguirlo por SSE o cancelarlo. Con dryRun
+     * el archivo solo se valida.
+     * @throws IllegalArgumentException si el dataset no existe o es "all"
+     * @throws IllegalStateException si ya hay un job activo para ese dataset
+     */
+    public ImportJob runUpload(String dataset, CsvImportService.Upload upload, boolean dryRun) {
+        if (CsvImportService.ALL_DATASETS.equals(dataset)) {
+            throw new IllegalArgumentException("Una subida contiene un único dataset");
+        }
+        ImportJob job;
+        synchronized (this) {
+            job = register(dataset, dryRun);
+        }
+        log.info("📤 Job {} recibiendo subida para dataset '{}'{}", job.getId(), dataset, dryRun ? " (dry run)" : "");
+        run(job, () -> csvImportService.importUpload(dataset, upload, job));
+        return job;
+    }
+
+    /**
+     * Importa un dataset en el hilo que llama y vuelve al terminar (GET /import). Se
+     * registra como cualquier otro job, así que respeta el límite de un job activo por
+     * dataset y se puede seguir por SSE o cancelar mientras dura.
+     * @throws IllegalArgumentException si el dataset no existe
+     * @throws IllegalStateException si ya hay un job activo para ese dataset
+     */
+    public ImportJob runNow(String dataset) {
+        ImportJob job;
+        synchronized (this) {
+            job = register(dataset, false);
+        }
+        log.info("▶️ Job {} (síncrono) para dataset '{}'", job.getId(), dataset);
+        run(job);
+        return job;
+    }
+
+    public synchronized Optional<ImportJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    public synchronized List<ImportJob> findAll() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    /**
+     * Pide la cancelación de un job; los importadores se detienen en la siguiente línea.
+     */
+    public Optional<ImportJob> cancel(String id) {
+        Optional<ImportJob> job = find(id);
+        job.ifPresent(j -> {
+            if (j.requestCancel()) {
+                log.info("⏹️ Cancelación solicitada para job {}", id);
+            }
+        });
+        return job;
+    }
+
+    /**
+     * Abre un stream SSE con el estado del job. Un único hilo muestrea todos los jobs a
+     * ritmo fijo (eventos "progress") y envía un evento "finished" al terminar, así que
+     * un cliente lento nunca frena a los importadores.
+     */
+    public SseEmitter stream(ImportJob job) {
+        SseEmitter emitter = new SseEmitter(0L); // sin timeout: se cierra cuando termina el job
+        AtomicBoolean closed = new AtomicBoolean();
+        AtomicReference<ScheduledFuture<?>> task = new AtomicReference<>();
+
+        Runnable stop = () -> {
+            closed.set(true);
+            ScheduledFuture<?> scheduled = task.get();
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        };
+        emitter.onCompletion(stop);
+        emitter.onTimeout(stop);
+        emitter.onError(error -> stop.run());
+
+        task.set(progressScheduler.scheduleAtFixedRate(() -> {
+            if (closed.get()) {
+                stop.run();
+                return;
+            }
+            try {
+                boolean finished = job.isFinished();
+                ImportJobDto snapshot = job.toDto();
+                emitter.send(SseEmitter.event()
+                        .name(finished ? "finished" : "progress")
+                        .data(snapshot, MediaType.APPLICATION_JSON));
+                if (finished) {
+                    stop.run();
+                    emitter.complete();
+                }
+            } catch (Exception e) {
+                // Cliente desconectado: dejar de muestrear
+                stop.run();
+                emitter.completeWithError(e);
+            }
+        }, 0, progressIntervalMs, TimeUnit.MILLISECONDS));
+
+        return emitter;
+    }
+
+    private ImportJob register(String dataset, boolean dryRun) {
+        if (!csvImportService.getDatasets().contains(dataset)) {
+            throw new IllegalArgumentException("Dataset desconocido: " + dataset);
+        }
+        for (ImportJob active : jobs.values()) {
+            if (!dryRun && !active.isDryRun() && !active.isFinished() && overlaps(active.getDataset(), dataset)) {
+                throw new IllegalStateException("Ya hay una importación activa de '" + active.getDataset()
+                        + "' (job " + active.getId() + ")");
+            }
+        }
+
+        ImportJob job = new ImportJob(dataset, dryRun);
+        jobs.put(job.getId(), job);
+        pruneFinishedJobs();
+        return job;
+    }
+
+    private void run(ImportJob job) {
+        run(job, () -> csvImportService.importDataset(job.getDataset(), job));
+    }
+
+    private void run(ImportJob job, Supplier<CsvImportResultDto> importer) {
+        job.markRunning();
+        try {
+            CsvImportResultDto result = importer.get();
+            job.markFinished(result);
+            log.info("🏁 Job {} terminado: {}", job.getId(), job.getStatus());
+        } catch (Exception e) {
+            job.markFailed(e);
+            log.error("❌ Job {} fallido: {}", job.getId(), e.getMessage(), e);
+        }
+    }
+
+    private static boolean overlaps(String a, String b) {
+        return a.equals(b)
+                || CsvImportService.ALL_DATASETS.equals(a)
+                || CsvImportService.ALL_DATASETS.equals(b);
+    }
+
+    private void pruneFinishedJobs() {
+        long finished = jobs.values().stream().filter(ImportJob::isFinished).count();
+        Iterator<ImportJob> it = jobs.values().iterator();
+        while (finished > MAX_FINISHED_JOBS && it.hasNext()) {
+            if (it.next().isFinished()) {
+                it.remove();
+                finished--;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(ImportJob::requestCancel);
+        jobExecutor.shutdown();
+        progressScheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,27 @@
+package com.paucasesnoves.steamAPI.modules.csv.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro de los medidores de cada importador. Se crean la primera vez que se usa un
+ * importador y se reutilizan en las siguientes importaciones; los dry runs tienen los
+ * suyos (tag dry_run=true).
+ */
+@Component
+public class ImportMetrics {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, ImporterMeters> meters = new ConcurrentHashMap<>();
+
+    public ImporterMeters forImporter(String importer, boolean dryRun) {
+        return meters.computeIfAbsent(dryRun ? importer + ":dry-run" : importer,
+                key -> new ImporterMeters(meterRegistry, importer, dryRun));
+    }
+}
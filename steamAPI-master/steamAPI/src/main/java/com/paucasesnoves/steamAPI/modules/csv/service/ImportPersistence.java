@@ -0,0 +1,241 @@
+package com.paucasesnoves.steamAPI.modules.csv.service;
+
+import com.paucasesnoves.steamAPI.modules.csv.dto.CsvImportStatisticsDto;
+import com.paucasesnoves.steamAPI.modules.csv.dto.SkipReason;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Acceso a la base de datos compartido por los importadores: guardado de lotes (con dry run,
+ * métricas y eventos) y upserts multi-fila por JDBC.
+ * El parseo y la lectura de archivos siguen en {@link com.paucasesnoves.steamAPI.utils.CsvUtils}.
+ */
+public final class ImportPersistence {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportPersistence.class);
+
+    private ImportPersistence() {
+    }
+
+    // =========================================================================
+    // MANEJO DE LOTES Y LIMPIEZA DEL CONTEXTO DE PERSISTENCIA
+    // =========================================================================
+
+    /**
+     * Guarda un lote, hace flush/clear y actualiza estadísticas.
+     */
+    public static <T> void saveBatchAndClear(List<T> batch,
+                                             Function<List<T>, Iterable<T>> saveFunction,
+                                             CsvImportStatisticsDto stats,
+                                             EntityManager entityManager) {
+        if (batch.isEmpty() || discardIfDryRun(batch)) return;
+        long start = System.nanoTime();
+        ImportEvents.BatchFlush event = ImportEvents.BatchFlush.start();
+        try {
+            saveFunction.apply(batch);
+            entityManager.flush();
+            entityManager.clear();
+            ImportProgress.recordBatch(System.nanoTime() - start, batch.size());
+            event.complete(stats, batch.size(), true);
+            log.debug("✅ Lote guardado: {} entidades | Total acumulado: {}",
+                    batch.size(), stats.getCreated());
+        } catch (Exception e) {
+            event.complete(stats, batch.size(), false);
+            log.error("❌ Error guardando lote de {} entidades: {}",
+                    batch.size(), e.getMessage(), e);
+            stats.addCreated(-batch.size());
+            stats.addSkipped(SkipReason.WRITE_FAILED, batch.size());
+        }
+    }
+
+    /**
+     * Como {@link #saveBatchAndClear}, pero con save + flush + clear en su propia transacción
+     * (o en la del hilo, si ya hay una). Sirve para escribir desde un hilo sin transacción,
+     * como el escritor de ImportPipeline. Si el lote falla, solo se pierde ese lote.
+     */
+    public static <T> void saveBatchInTransaction(List<T> batch,
+                                                  Function<List<T>, Iterable<T>> saveFunction,
+                                                  CsvImportStatisticsDto stats,
+                                                  EntityManager entityManager,
+                                                  TransactionTemplate transactionTemplate) {
+        if (batch.isEmpty() || discardIfDryRun(batch)) return;
+        long start = System.nanoTime();
+        ImportEvents.BatchFlush event = ImportEvents.BatchFlush.start();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                saveFunction.apply(batch);
+                entityManager.flush();
+                entityManager.clear();
+            });
+            ImportProgress.recordBatch(System.nanoTime() - start, batch.size());
+            event.complete(stats, batch.size(), true);
+            log.debug("✅ Lote guardado: {} entidades | Total acumulado: {}",
+                    batch.size(), stats.getCreated());
+        } catch (Exception e) {
+            event.complete(stats, batch.size(), false);
+            log.error("❌ Error guardando lote de {} entidades: {}",
+                    batch.size(), e.getMessage(), e);
+            stats.addCreated(-batch.size());
+            stats.addSkipped(SkipReason.WRITE_FAILED, batch.size());
+        }
+    }
+
+    /**
+     * Versión sin EntityManager (cuando no se necesita flush/clear explícito).
+     */
+    public static <T> void saveBatch(List<T> batch,
+                                     Function<List<T>, Iterable<T>> saveFunction,
+                                     CsvImportStatisticsDto stats) {
+        if (batch.isEmpty() || discardIfDryRun(batch)) return;
+        long start = System.nanoTime();
+        ImportEvents.BatchFlush event = ImportEvents.BatchFlush.start();
+        try {
+            saveFunction.apply(batch);
+            ImportProgress.recordBatch(System.nanoTime() - start, batch.size());
+            event.complete(stats, batch.size(), true);
+            log.debug("✅ Lote guardado: {} entidades | Total: {}",
+                    batch.size(), stats.getCreated());
+        } catch (Exception e) {
+            event.complete(stats, batch.size(), false);
+            log.error("❌ Error guardando lote: {}", e.getMessage(), e);
+            stats.addCreated(-batch.size());
+            stats.addSkipped(SkipReason.WRITE_FAILED, batch.size());
+        }
+    }
+
+    /**
+     * En un dry run los lotes no se escriben: se descartan sin transacción ni flush.
+     */
+    private static boolean discardIfDryRun(List<?> batch) {
+        if (!DryRun.isActive()) {
+            return false;
+        }
+        log.debug("🧪 Dry run: lote de {} entidades descartado", batch.size());
+        return true;
+    }
+
+    /**
+     * Enlaza en un PreparedStatement las columnas de una fila de un INSERT multi-fila.
+     * Los parámetros de la fila empiezan en {@code offset + 1}.
+     */
+    @FunctionalInterface
+    public interface RowBinder<T> {
+        void bind(PreparedStatement ps, int offset, T row) throws SQLException;
+    }
+
+    // Límite de parámetros por sentencia preparada en MySQL
+    private static final int MAX_STATEMENT_PARAMETERS = 65_535;
+
+    // Tope de texto enlazado por sentencia, muy por debajo del max_allowed_packet de MySQL
+    // (4 MB por defecto hasta 5.7, 64 MB en 8.0): un lote de HTML no debe romper el paquete
+    static final long MAX_STATEMENT_BYTES = 2L << 20;
+
+    /**
+     * Escribe las filas con INSERT ... VALUES (...), (...) ON DUPLICATE KEY UPDATE: un único
+     * statement por lote (salvo que supere el límite de parámetros de MySQL) y sin leer
+     * antes qué filas existen. La clave que decide si se actualiza es la PK o un índice
+     * UNIQUE de la tabla, así que no debe aparecer en {@code updateColumns}.
+     * Para filas con columnas numéricas o cortas; con texto largo usar la variante con
+     * {@code rowBytes}.
+     * @return filas afectadas según MySQL (1 por alta, 2 por fila modificada)
+     */
+    public static <T> int upsertBatch(JdbcTemplate jdbcTemplate,
+                                      String table,
+                                      String[] columns,
+                                      String[] updateColumns,
+                                      List<T> rows,
+                                      RowBinder<T> binder) {
+        return upsertBatch(jdbcTemplate, table, columns, updateColumns, rows, row -> 0L, binder);
+    }
+
+    /**
+     * Como {@link #upsertBatch(JdbcTemplate, String, String[], String[], List, RowBinder)},
+     * pero también corta la sentencia cuando el texto de sus filas ({@code rowBytes}, ver
+     * {@link #textBytes}) llega a {@link #MAX_STATEMENT_BYTES}. Una fila que supera el tope
+     * por sí sola va en su propia sentencia.
+     */
+    public static <T> int upsertBatch(JdbcTemplate jdbcTemplate,
+                                      String table,
+                                      String[] columns,
+                                      String[] updateColumns,
+                                      List<T> rows,
+                                      ToLongFunction<T> rowBytes,
+                                      RowBinder<T> binder) {
+        int rowsPerStatement = Math.max(1, MAX_STATEMENT_PARAMETERS / columns.length);
+        int affected = 0;
+        int from = 0;
+        while (from < rows.size()) {
+            int to = from;
+            long bytes = 0;
+            while (to < rows.size() && to - from < rowsPerStatement) {
+                long size = rowBytes.applyAsLong(rows.get(to));
+                if (to > from && bytes + size > MAX_STATEMENT_BYTES) {
+                    break;
+                }
+                bytes += size;
+                to++;
+            }
+            List<T> chunk = rows.subList(from, to);
+            from = to;
+            String sql = buildUpsertSql(table, columns, updateColumns, chunk.size());
+            affected += jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(sql);
+                int offset = 0;
+                for (T row : chunk) {
+                    binder.bind(ps, offset, row);
+                    offset += columns.length;
+                }
+                return ps;
+            });
+        }
+        return affected;
+    }
+
+    /**
+     * Bytes UTF-8 de los textos de una fila (los null no cuentan), sin codificarlos.
+     */
+    public static long textBytes(String... values) {
+        long bytes = 0;
+        for (String value : values) {
+            if (value == null) {
+                continue;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                bytes += c < 0x80 ? 1 : c < 0x800 || Character.isSurrogate(c) ? 2 : 3;
+            }
+        }
+        return bytes;
+    }
+
+    private static String buildUpsertSql(String table, String[] columns, String[] updateColumns, int rowCount) {
+        String placeholders = "(" + String.join(", ", Collections.nCopies(columns.length, "?")) + ")";
+        StringBuilder sql = new StringBuilder(64 + rowCount * (placeholders.length() + 2))
+                .append("INSERT INTO ").append(table)
+                .append(" (").append(String.join(", ", columns)).append(") VALUES ");
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(placeholders);
+        }
+        sql.append(" ON DUPLICATE KEY UPDATE ");
+        for (int i = 0; i < updateColumns.length; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(updateColumns[i]).append(" = VALUES(").append(updateColumns[i]).append(")");
+        }
+        return sql.toString();
+    }
+}
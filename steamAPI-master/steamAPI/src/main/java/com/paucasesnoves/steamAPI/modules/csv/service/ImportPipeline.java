@@ -0,0 +1,287 @@
+package com.paucasesnoves.steamAPI.modules.csv.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pipeline de importación en tres etapas unidas por colas acotadas:
+ * <ol>
+ *     <li>Lectura: el hilo que llama lee y filtra filas del CSV (validación de appId,
+ *     duplicados... todo lo que necesita orden de archivo o estado sin sincronizar).</li>
+ *     <li>Transformación: N workers convierten cada fila en entidad (limpieza de campos,
+ *     parseo de fechas o JSON). Corren en hilos virtuales si la JVM los tiene (21+).</li>
+ *     <li>Escritura: un único hilo agrupa las entidades en lotes y los escribe. Al ser otro
+ *     hilo, cada lote que abre una transacción usa su propia conexión del pool.</li>
+ * </ol>
+ * Las colas tienen capacidad fija: si la BD va lenta la escritura deja de consumir, los
+ * workers se bloquean al entregar y la lectura al encolar, así que la memoria no crece.
+ * <p>
+ * Con {@code steam.import.pipeline.workers=0} (por defecto) las tres etapas corren en el
+ * hilo que llama, fila a fila, igual que un bucle secuencial. Si cualquier etapa falla se
+ * detienen las demás y {@link #run} relanza el primer error.
+ * <p>
+ * Los workers y el escritor ven el mismo job y medidores que el hilo que llama
+ * ({@link ImportProgress}); las estadísticas son thread-safe.
+ */
+@Component
+public class ImportPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportPipeline.class);
+
+    private static final Object END = new Object();
+    private static final long POLL_MILLIS = 100;
+
+    /**
+     * Fuente de filas del CSV; devuelve null al acabar. Corre en el hilo que llama.
+     */
+    @FunctionalInterface
+    public interface Source<R> {
+        R next() throws Exception;
+    }
+
+    /**
+     * Convierte una fila en entidad, o null si se descarta. Debe ser thread-safe.
+     */
+    @FunctionalInterface
+    public interface Transform<R, T> {
+        T apply(R row) throws Exception;
+    }
+
+    /**
+     * Escribe un lote. La lista se vacía y se reutiliza al volver: no guardar referencias.
+     */
+    @FunctionalInterface
+    public interface BatchWriter<T> {
+        void write(List<T> batch) throws Exception;
+    }
+
+    /**
+     * Workers de transformación (0 = pipeline desactivado, todo en el hilo que llama).
+     */
+    @Value("${steam.import.pipeline.workers:0}")
+    private int workers;
+
+    /**
+     * Capacidad de cada cola entre etapas.
+     */
+    @Value("${steam.import.pipeline.queue-capacity:2048}")
+    private int queueCapacity;
+
+    private final AsyncTaskExecutor executor = createExecutor();
+
+    public boolean isEnabled() {
+        return workers > 0;
+    }
+
+    public <R, T> void run(Source<R> source, Transform<R, T> transform, int batchSize,
+                           BatchWriter<T> writer) throws Exception {
+        if (!isEnabled()) {
+            runInline(source, transform, batchSize, writer);
+            return;
+        }
+        new Execution<>(source, transform, batchSize, writer).run();
+    }
+
+    private static <R, T> void runInline(Source<R> source, Transform<R, T> transform, int batchSize,
+                                         BatchWriter<T> writer) throws Exception {
+        List<T> batch = new ArrayList<>(batchSize);
+        R row;
+        while ((row = source.next()) != null) {
+            T item = transform.apply(row);
+            if (item != null) {
+                batch.add(item);
+                if (batch.size() >= batchSize) {
+                    writer.write(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            writer.write(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Hilos virtuales en Java 21+ (VirtualThreadTaskExecutor de Spring es multi-release);
+     * en versiones anteriores, un hilo de plataforma por tarea.
+     */
+    private static AsyncTaskExecutor createExecutor() {
+        if (Runtime.version().feature() >= 21) {
+            return new VirtualThreadTaskExecutor("csv-pipeline-");
+        }
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("csv-pipeline-");
+        executor.setDaemon(true);
+        return executor;
+    }
+
+    /**
+     * Estado de una ejecución concreta: colas, primer error y tiempos de espera.
+     */
+    private final class Execution<R, T> {
+
+        private final Source<R> source;
+        private final Transform<R, T> transform;
+        private final int batchSize;
+        private final BatchWriter<T> writer;
+
+        private final BlockingQueue<Object> rows = new ArrayBlockingQueue<>(queueCapacity);
+        private final BlockingQueue<Object> entities = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private long readerBlockedNanos;
+
+        Execution(Source<R> source, Transform<R, T> transform, int batchSize, BatchWriter<T> writer) {
+            this.source = source;
+            this.transform = transform;
+            this.batchSize = batchSize;
+            this.writer = writer;
+        }
+
+        void run() throws Exception {
+            long start = System.nanoTime();
+            List<Future<?>> tasks = new ArrayList<>(workers + 1);
+            for (int i = 0; i < workers; i++) {
+                tasks.add(executor.submit(ImportProgress.propagate(() -> guard(this::transformRows))));
+            }
+            tasks.add(executor.submit(ImportProgress.propagate(() -> guard(this::writeBatches))));
+
+            guard(this::readRows);
+
+            for (Future<?> task : tasks) {
+                try {
+                    task.get();
+                } catch (ExecutionException e) {
+                    fail(e.getCause());
+                }
+            }
+
+            Throwable error = failure.get();
+            if (error instanceof Exception exception) {
+                throw exception;
+            }
+            if (error instanceof Error e) {
+                throw e;
+            }
+            log.info("🧵 Pipeline: {} workers | lectura bloqueada por la escritura {}s de {}s",
+                    workers,
+                    String.format("%.2f", readerBlockedNanos / 1_000_000_000.0),
+                    String.format("%.2f", (System.nanoTime() - start) / 1_000_000_000.0));
+        }
+
+        // ---- Etapas ----
+
+        private void readRows() throws Exception {
+            R row;
+            while ((row = source.next()) != null) {
+                long start = System.nanoTime();
+                put(rows, row);
+                readerBlockedNanos += System.nanoTime() - start;
+            }
+            for (int i = 0; i < workers; i++) {
+                put(rows, END);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void transformRows() throws Exception {
+            Object row;
+            while ((row = take(rows)) != END) {
+                T item = transform.apply((R) row);
+                if (item != null) {
+                    put(entities, item);
+                }
+            }
+            put(entities, END);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void writeBatches() throws Exception {
+            List<T> batch = new ArrayList<>(batchSize);
+            int running = workers;
+            while (running > 0) {
+                Object item = take(entities);
+                if (item == END) {
+                    running--;
+                    continue;
+                }
+                batch.add((T) item);
+                if (batch.size() >= batchSize) {
+                    writer.write(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                writer.write(batch);
+                batch.clear();
+            }
+        }
+
+        // ---- Colas con salida si otra etapa ha fallado ----
+
+        private void put(BlockingQueue<Object> queue, Object item) throws InterruptedException {
+            while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                abortIfFailed();
+            }
+        }
+
+        private Object take(BlockingQueue<Object> queue) throws InterruptedException {
+            Object item;
+            while ((item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                abortIfFailed();
+            }
+            return item;
+        }
+
+        private void abortIfFailed() {
+            if (failure.get() != null) {
+                throw new Aborted();
+            }
+        }
+
+        private void guard(Stage stage) {
+            try {
+                stage.run();
+            } catch (Aborted e) {
+                // Otra etapa ya ha fallado: su error es el que se relanza
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            } catch (Throwable t) {
+                fail(t);
+            }
+        }
+
+        private void fail(Throwable t) {
+            if (!(t instanceof Aborted)) {
+                failure.compareAndSet(null, t);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Stage {
+        void run() throws Exception;
+    }
+
+    private static final class Aborted extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Aborted() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.paucasesnoves.steamAPI.modules.csv.service;
+
+import com.paucasesnoves.steamAPI.modules.csv.dto.CsvImportStatisticsDto;
+import com.paucasesnoves.steamAPI.modules.csv.dto.ImporterProgressDto;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Progreso en vivo de un importador dentro de un {@link ImportJob}.
+ *
+ * CsvImportService lo asocia al hilo que ejecuta el importador; los importadores
+ * solo usan los métodos estáticos (track, recordBatch, checkCancelled), que no
+ * hacen nada cuando la importación no pertenece a un job (p.ej. GET /import).
+ * Los medidores Micrometer del importador se asocian al hilo siempre, haya job o no.
+ */
+public class ImportProgress {
+
+    private static final ThreadLocal<ImportProgress> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<ImporterMeters> METERS = new ThreadLocal<>();
+
+    public enum Status { RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    private final String importer;
+    private final long totalBytes;
+    private final LongSupplier bytesRead;
+    private final AtomicBoolean cancelRequested;
+    private final long startedNanos = System.nanoTime();
+
+    private final AtomicLong batchesFlushed = new AtomicLong();
+    private volatile long lastBatchNanos;
+    private volatile CsvImportStatisticsDto stats;
+    private volatile Status status = Status.RUNNING;
+    private volatile long finishedNanos;
+
+    ImportProgress(String importer, long totalBytes, LongSupplier bytesRead, AtomicBoolean cancelRequested) {
+        this.importer = importer;
+        this.totalBytes = totalBytes;
+        this.bytesRead = bytesRead;
+        this.cancelRequested = cancelRequested;
+    }
+
+    // =========================================================================
+    // API PARA LOS IMPORTADORES (hilo actual)
+    // =========================================================================
+
+    /**
+     * Publica las estadísticas del importador en curso para que puedan consultarse.
+     */
+    public static void track(CsvImportStatisticsDto stats) {
+        stats.attachListener(METERS.get());
+        ImportProgress progress = CURRENT.get();
+        if (progress != null) {
+            progress.stats = stats;
+        }
+    }
+
+    /**
+     * Registra un lote escrito, su latencia y cuántas entidades contenía.
+     */
+    public static void recordBatch(long elapsedNanos, int entities) {
+        ImporterMeters meters = METERS.get();
+        if (meters != null) {
+            meters.batchFlushed(elapsedNanos, entities);
+        }
+        ImportProgress progress = CURRENT.get();
+        if (progress != null) {
+            progress.batchesFlushed.incrementAndGet();
+            progress.lastBatchNanos = elapsedNanos;
+        }
+    }
+
+    /**
+     * Interrumpe el importador si se ha pedido cancelar el job.
+     * Debe llamarse fuera de los try/catch por línea para que la excepción no se absorba.
+     */
+    public static void checkCancelled() {
+        ImportProgress progress = CURRENT.get();
+        if (progress != null && progress.cancelRequested.get()) {
+            throw new CancellationException("Importación cancelada: " + progress.importer);
+        }
+    }
+
+    static void bind(ImportProgress progress) {
+        CURRENT.set(progress);
+    }
+
+    /**
+     * Nombre del importador que corre en este hilo, o null fuera de CsvImportService.
+     */
+    public static String currentImporter() {
+        ImporterMeters meters = METERS.get();
+        return meters != null ? meters.getImporter() : null;
+    }
+
+    static void bindMeters(ImporterMeters meters) {
+        METERS.set(meters);
+    }
+
+    /**
+     * Envuelve una tarea para que corra en otro hilo con el job, los medidores y el
+     * {@link DryRun} de este (workers y escritor de {@link ImportPipeline}).
+     */
+    static Runnable propagate(Runnable task) {
+        ImportProgress progress = CURRENT.get();
+        ImporterMeters meters = METERS.get();
+        DryRun dryRun = DryRun.current();
+        return () -> {
+            CURRENT.set(progress);
+            METERS.set(meters);
+            DryRun.bind(dryRun);
+            try {
+                task.run();
+            } finally {
+                unbind();
+                DryRun.unbind();
+            }
+        };
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+        METERS.remove();
+    }
+
+    // =========================================================================
+    // CICLO DE VIDA Y CONSULTA
+    // =========================================================================
+
+    void complete(CsvImportStatisticsDto finalStats) {
+        this.stats = finalStats;
+        finish(Status.COMPLETED);
+    }
+
+    void fail() {
+        finish(cancelRequested.get() ? Status.CANCELLED : Status.FAILED);
+    }
+
+    private void finish(Status finalStatus) {
+        this.finishedNanos = System.nanoTime();
+        this.status = finalStatus;
+    }
+
+    public String getImporter() {
+        return importer;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Copia del estado actual. Se calcula al consultar, nunca desde el bucle de importación.
+     */
+    public ImporterProgressDto snapshot() {
+        long end = status == Status.RUNNING ? System.nanoTime() : finishedNanos;
+        double elapsed = (end - startedNanos) / 1_000_000_000.0;
+        long read = bytesRead.getAsLong();
+
+        ImporterProgressDto dto = new ImporterProgressDto();
+        dto.setImporter(importer);
+        dto.setStatus(status.name());
+        dto.setElapsedSeconds(elapsed);
+        dto.setBatchesFlushed(batchesFlushed.get());
+        dto.setLastBatchMillis(lastBatchNanos / 1_000_000.0);
+        dto.setBytesRead(read);
+        dto.setTotalBytes(totalBytes);
+
+        CsvImportStatisticsDto current = stats;
+        if (current != null) {
+            dto.setProcessed(current.getProcessed());
+            dto.setCreated(current.getCreated());
+            dto.setSkipped(current.getSkipped());
+            dto.setRowsPerSecond(elapsed > 0 ? current.getProcessed() / elapsed : 0);
+        }
+
+        if (totalBytes > 0) {
+            double fraction = Math.min(1.0, (double) read / totalBytes);
+            dto.setPercent(fraction * 100);
+            if (status == Status.RUNNING && fraction > 0) {
+                dto.setEtaSeconds(elapsed * (1 - fraction) / fraction);
+            }
+        }
+        return dto;
+    }
+}
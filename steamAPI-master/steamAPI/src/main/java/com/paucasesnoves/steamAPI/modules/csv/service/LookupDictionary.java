@@ -0,0 +1,131 @@
+package com.paucasesnoves.steamAPI.modules.csv.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * Diccionario nombre → entidad válido durante una única importación.
+ * Se carga con una sola consulta al inicio y no se vacía a mitad de ejecución,
+ * así que resolver un nombre es una búsqueda en memoria. Los nombres nuevos se
+ * crean sin persistir y se guardan todos juntos con {@link #flushPending()}; si la
+ * transacción de ese guardado se revierte, se olvidan para que el siguiente lote los
+ * vuelva a crear en lugar de referenciar ids que no existen. Por eso las creaciones se
+ * cuentan al confirmarse el guardado, no al crearse la entidad.
+ *
+ * Las claves se comparan sin mayúsculas ni acentos, igual que la collation
+ * de MySQL sobre la columna única {@code name}.
+ */
+public class LookupDictionary<T> {
+
+    private final Map<String, T> entries;
+    private final List<T> pending = new ArrayList<>();
+    private final Function<T, String> nameMapper;
+    private final Function<String, T> factory;
+    private final Function<List<T>, List<T>> saveAll;
+    private final IntConsumer onCreated;
+
+    public LookupDictionary(List<T> existing,
+                            Function<T, String> nameMapper,
+                            Function<String, T> factory,
+                            Function<List<T>, List<T>> saveAll,
+                            IntConsumer onCreated) {
+        this.entries = new HashMap<>(Math.max(16, existing.size() * 2));
+        for (T entity : existing) {
+            entries.putIfAbsent(key(nameMapper.apply(entity)), entity);
+        }
+        this.nameMapper = nameMapper;
+        this.factory = factory;
+        this.saveAll = saveAll;
+        this.onCreated = onCreated;
+    }
+
+    /**
+     * Busca una entidad ya conocida (cargada o creada en esta importación).
+     */
+    public Optional<T> find(String name) {
+        return Optional.ofNullable(entries.get(key(name)));
+    }
+
+    /**
+     * Devuelve la entidad del nombre indicado, creándola si no existe.
+     */
+    public T resolve(String name) {
+        T entity = entries.get(key(name));
+        return entity != null ? entity : create(name);
+    }
+
+    /**
+     * Crea una entidad nueva pendiente de guardar.
+     * Pensado como "creator" de {@code CsvUtils.parseAndFindOrCreate}.
+     */
+    public T create(String name) {
+        T entity = factory.apply(name);
+        entries.put(key(name), entity);
+        pending.add(entity);
+        return entity;
+    }
+
+    /**
+     * Persiste en un único saveAll las entidades creadas desde el último flush.
+     * Debe llamarse antes de guardar los juegos que las referencian, dentro de su
+     * transacción: las entidades solo quedan en el diccionario (y se cuentan como
+     * creadas) si esa transacción se confirma.
+     */
+    public int flushPending() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        List<T> flushed = new ArrayList<>(pending);
+        pending.clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        onCreated.accept(flushed.size());
+                    } else {
+                        discard(flushed);
+                    }
+                }
+            });
+        }
+        try {
+            saveAll.apply(flushed);
+        } catch (RuntimeException e) {
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                discard(flushed);
+            }
+            throw e;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCreated.accept(flushed.size());
+        }
+        return flushed.size();
+    }
+
+    // Sus ids no llegaron a la BD: fuera del diccionario, se crearán de nuevo si se piden
+    private void discard(List<T> entities) {
+        for (T entity : entities) {
+            entries.remove(key(nameMapper.apply(entity)), entity);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static String key(String name) {
+        String lower = name.trim().toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) > 0x7F) {
+                return Normalizer.normalize(lower, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+            }
+        }
+        return lower;
+    }
+}
@@ -0,0 +1,87 @@
+package com.paucasesnoves.steamAPI.modules.csv.service;
+
+import com.paucasesnoves.steamAPI.modules.csv.dto.CsvImportStatisticsDto;
+import com.paucasesnoves.steamAPI.modules.games.domain.*;
+import com.paucasesnoves.steamAPI.modules.games.repository.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * Carga los diccionarios de Developer/Publisher/Platform/Category/Genre para una importación.
+ * Cada tabla se lee con una única consulta; a partir de ahí la resolución de nombres
+ * no vuelve a tocar la base de datos. En un dry run los diccionarios empiezan vacíos y
+ * no guardan nada: cada nombre distinto del archivo cuenta como creado.
+ */
+@Service
+public class LookupDictionaryService {
+
+    private static final Logger log = LoggerFactory.getLogger(LookupDictionaryService.class);
+
+    @Autowired
+    private DeveloperRepository developerRepo;
+    @Autowired
+    private PublisherRepository publisherRepo;
+    @Autowired
+    private PlatformRepository platformRepo;
+    @Autowired
+    private CategoryRepository categoryRepo;
+    @Autowired
+    private GenreRepository genreRepo;
+
+    /**
+     * Crea los diccionarios de una importación. Las entidades nuevas se
+     * contabilizan en las estadísticas recibidas.
+     */
+    public Dictionaries load(CsvImportStatisticsDto stats) {
+        Dictionaries dictionaries = new Dictionaries(
+                dictionary(developerRepo, Developer::getName, Developer::new, stats::addDevelopersCreated),
+                dictionary(publisherRepo, Publisher::getName, Publisher::new, stats::addPublishersCreated),
+                dictionary(platformRepo, Platform::getName, Platform::new, stats::addPlatformsCreated),
+                dictionary(categoryRepo, Category::getName, Category::new, stats::addCategoriesCreated),
+                dictionary(genreRepo, Genre::getName, Genre::new, stats::addGenresCreated)
+        );
+        log.info("📚 Diccionarios precargados: {} desarrolladores, {} editores, {} plataformas, {} categorías, {} géneros",
+                dictionaries.developers().size(), dictionaries.publishers().size(),
+                dictionaries.platforms().size(), dictionaries.categories().size(),
+                dictionaries.genres().size());
+        return dictionaries;
+    }
+
+    private static <T> LookupDictionary<T> dictionary(JpaRepository<T, ?> repo,
+                                                      Function<T, String> nameMapper,
+                                                      Function<String, T> factory,
+                                                      IntConsumer onCreated) {
+        if (DryRun.isActive()) {
+            return new LookupDictionary<>(List.of(), nameMapper, factory, pending -> pending, onCreated);
+        }
+        return new LookupDictionary<>(repo.findAll(), nameMapper, factory, repo::saveAll, onCreated);
+    }
+
+    /**
+     * Conjunto de diccionarios de una importación.
+     */
+    public record Dictionaries(LookupDictionary<Developer> developers,
+                               LookupDictionary<Publisher> publishers,
+                               LookupDictionary<Platform> platforms,
+                               LookupDictionary<Category> categories,
+                               LookupDictionary<Genre> genres) {
+
+        /**
+         * Guarda todas las entidades nuevas pendientes, un saveAll por tabla.
+         */
+        public int flushPending() {
+            return developers.flushPending()
+                    + publishers.flushPending()
+                    + platforms.flushPending()
+                    + categories.flushPending()
+                    + genres.flushPending();
+        }
+    }
+}
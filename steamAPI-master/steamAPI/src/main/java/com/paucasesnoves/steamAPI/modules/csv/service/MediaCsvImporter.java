@@ -1,33 +1,39 @@
 package com.paucasesnoves.steamAPI.modules.csv.service;
 
-import tools.jackson.core.type.TypeReference;
-import tools.jackson.databind.ObjectMapper;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
+import com.paucasesnoves.steamAPI.modules.csv.domain.ImportCheckpoint;
 import com.paucasesnoves.steamAPI.modules.csv.dto.CsvImportStatisticsDto;
+import com.paucasesnoves.steamAPI.modules.csv.dto.SkipReason;
 import com.paucasesnoves.steamAPI.modules.games.domain.Game;
 import com.paucasesnoves.steamAPI.modules.games.domain.GameMedia;
 import com.paucasesnoves.steamAPI.modules.games.repository.GameMediaRepository;
 import com.paucasesnoves.steamAPI.modules.games.repository.GameRepository;
 import com.paucasesnoves.steamAPI.utils.CsvUtils;
+import com.paucasesnoves.steamAPI.utils.LongHashSet;
+import com.paucasesnoves.steamAPI.utils.MappedCsvReader;
+import com.paucasesnoves.steamAPI.utils.MediaJsonExtractor;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Function;
 
 @Service
 public class MediaCsvImporter {
 
     private static final Logger log = LoggerFactory.getLogger(MediaCsvImporter.class);
     private static final int BATCH_SIZE = 1000;
+    private static final String DATASET = "media";
+    private static final String CHECKPOINT_KEY = "media";
 
     // Cabecera flexible: acepta "appid" o "steam_appid"
     private static final String[][] EXPECTED_HEADER_ALTERNATIVES = {
@@ -42,23 +48,31 @@ public class MediaCsvImporter {
     private GameRepository gameRepo;
     @Autowired
     private GameMediaRepository mediaRepo;
+    @Autowired
+    private ImportCheckpointService checkpointService;
+    @Autowired
+    private SatelliteUpsertWriter upsertWriter;
+    @Autowired
+    private StatelessSatelliteWriter statelessWriter;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ImportPipeline importPipeline;
     @PersistenceContext
     private EntityManager entityManager;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
-
-    @Transactional
+    /**
+     * Sin transacción envolvente: cada lote se confirma en la suya, así que el tamaño de
+     * las transacciones no depende del archivo y un fallo tardío no deshace lo importado.
+     */
     public CsvImportStatisticsDto importCsv(InputStream inputStream) {
         long startTime = System.currentTimeMillis();
         CsvImportStatisticsDto stats = new CsvImportStatisticsDto();
+        ImportProgress.track(stats);
 
         // 1. Precargar juegos y media existente
-        Map<Long, Game> gameCache = CsvUtils.buildEntityCache(gameRepo.findAll(), Game::getAppId);
-        log.info("📦 Juegos precargados: {} entidades", gameCache.size());
-
-        Set<Long> existingMediaAppIds = CsvUtils.buildExistenceCache(
-                mediaRepo.findAll(), media -> media.getGame().getAppId());
-        log.info("🖼️ Media existente: {} juegos", existingMediaAppIds.size());
+        GameReferences games = GameReferences.load(gameRepo, entityManager);
+        LongHashSet existingMediaAppIds = loadExistingMedia();
 
         // 2. Configurar parser CSV y leer cabecera
         try (CSVReader reader = new CSVReaderBuilder(
@@ -67,94 +81,112 @@ public class MediaCsvImporter {
                 .build()) {
 
             String[] header = reader.readNext();
-            if (!CsvUtils.isHeaderFlexibleValid(header, EXPECTED_HEADER_ALTERNATIVES)) {
+            if (!ImportEvents.HeaderValidation.validate(header, h -> CsvUtils.isHeaderFlexibleValid(h, EXPECTED_HEADER_ALTERNATIVES))) {
                 log.error("❌ Cabecera inválida. Encontrada: {}", Arrays.toString(header));
                 return stats;
             }
             log.info("📋 Cabecera válida: {}", String.join(" | ", header));
 
-            List<GameMedia> batch = new ArrayList<>(BATCH_SIZE);
-            String[] line;
-            int lineNumber = 1;
+            // Lectura y filtrado aquí; parseo del JSON en los workers; escritura por lotes
+            int[] lineNumber = {1};
+            importPipeline.run(
+                    () -> nextRow(reader, lineNumber, stats, games, existingMediaAppIds),
+                    row -> buildMedia(row, stats),
+                    BATCH_SIZE,
+                    batch -> ImportPersistence.saveBatchInTransaction(batch, saveFunction(), stats,
+                            entityManager, transactionTemplate));
 
-            while ((line = reader.readNext()) != null) {
-                lineNumber++;
-                stats.incrementProcessed();
+            // ---- Estadísticas finales ----
+            CsvUtils.logFinalStatistics(stats, startTime, "Media");
 
-                try {
-                    if (line.length < EXPECTED_HEADER_ALTERNATIVES.length) {
-                        log.warn("⚠️ Línea {}: solo {} campos (se requieren {})",
-                                lineNumber, line.length, EXPECTED_HEADER_ALTERNATIVES.length);
-                        stats.incrementSkipped();
-                        continue;
-                    }
+            // Importación completa: un checkpoint anterior ya no sirve
+            checkpointService.clear(CHECKPOINT_KEY);
 
-                    // ---- AppId ----
-                    Long appId = CsvUtils.parseLong(line[0].trim()).orElse(null);
-                    if (appId == null) {
-                        log.warn("⚠️ Línea {}: appId inválido '{}'", lineNumber, line[0]);
-                        stats.incrementSkipped();
-                        continue;
-                    }
+        } catch (Exception e) {
+            log.error("❌ Error crítico en importación de media", e);
+            throw new RuntimeException("Falló importación de media", e);
+        }
 
-                    // ---- Juego existe? ----
-                    Game game = gameCache.get(appId);
-                    if (game == null) {
-                        if (stats.getSkipped() % 1000 == 0) {
-                            log.debug("⏭️ Juego {} no encontrado", appId);
-                        }
-                        stats.incrementSkipped();
-                        continue;
-                    }
+        return stats;
+    }
 
-                    // ---- Ya tiene media? ----
-                    if (existingMediaAppIds.contains(appId)) {
-                        stats.incrementSkipped();
-                        continue;
-                    }
+    /**
+     * Variante sobre el archivo mapeado con lotes confirmados de uno en uno. Cada lote se
+     * guarda en su propia transacción junto con el checkpoint (byte donde acaba su último
+     * registro); si la importación se interrumpe, la siguiente salta a ese byte y solo
+     * procesa lo que faltaba.
+     */
+    public CsvImportStatisticsDto importCsv(MappedCsvReader reader) {
+        long startTime = System.currentTimeMillis();
+        CsvImportStatisticsDto stats = new CsvImportStatisticsDto();
+        ImportProgress.track(stats);
 
-                    // ---- Crear GameMedia ----
-                    GameMedia media = new GameMedia();
-                    media.setGame(game);
-                    media.setHeaderImage(parseHeaderImage(line[1]));
-                    media.setBackground(parseBackground(line[3]));
+        GameReferences games = GameReferences.load(gameRepo, entityManager);
+        LongHashSet existingMediaAppIds = loadExistingMedia();
 
-                    // ---- Parsear screenshots (JSON) ----
-                    List<String> screenshots = parseScreenshots(line[2]);
-                    media.getScreenshots().addAll(screenshots);
+        try {
+            String[] header = reader.readNext();
+            if (!ImportEvents.HeaderValidation.validate(header, h -> CsvUtils.isHeaderFlexibleValid(h, EXPECTED_HEADER_ALTERNATIVES))) {
+                log.error("❌ Cabecera inválida. Encontrada: {}", Arrays.toString(header));
+                return stats;
+            }
+            log.info("📋 Cabecera válida: {}", String.join(" | ", header));
 
-                    // ---- Parsear movies (JSON) ----
-                    List<String> movies = parseMoviesRobust(line[4]);
-                    media.getMovies().addAll(movies);
+            int lineNumber = 1;
+            int batchNumber = 0;
+            Optional<ImportCheckpoint> checkpoint = checkpointService.findResumable(CHECKPOINT_KEY, reader);
+            if (checkpoint.isPresent()) {
+                reader.seek(checkpoint.get().getByteOffset());
+                lineNumber = checkpoint.get().getLineNumber();
+                batchNumber = checkpoint.get().getBatchNumber();
+            }
 
-                    batch.add(media);
-                    stats.incrementCreated();
+            List<GameMedia> batch = new ArrayList<>(BATCH_SIZE);
 
-                    if (batch.size() >= BATCH_SIZE) {
-                        CsvUtils.saveBatchAndClear(batch, mediaRepo::saveAll, stats, entityManager);
-                        batch.clear();
-                    }
+            while (reader.next()) {
+                ImportProgress.checkCancelled();
+                lineNumber++;
+                stats.incrementProcessed();
 
-                    if (stats.getCreated() % 5000 == 0) {
-                        log.info("✅ {} media importados...", String.format("%,d", stats.getCreated()));
+                try {
+                    if (reader.fieldCount() < EXPECTED_HEADER_ALTERNATIVES.length) {
+                        log.warn("⚠️ Línea {}: solo {} campos (se requieren {})",
+                                lineNumber, reader.fieldCount(), EXPECTED_HEADER_ALTERNATIVES.length);
+                        stats.incrementSkipped(SkipReason.MALFORMED_ROW);
+                    } else {
+                        Long appId = reader.getLong(0).orElse(null);
+                        Game game = appId != null ? games.get(appId) : null;
+                        if (appId == null) {
+                            log.warn("⚠️ Línea {}: appId inválido '{}'", lineNumber, reader.getString(0));
+                            stats.incrementSkipped(SkipReason.INVALID_APP_ID);
+                        } else if (game == null || !existingMediaAppIds.add(appId)) {
+                            stats.incrementSkipped(game == null ? SkipReason.UNKNOWN_GAME : SkipReason.DUPLICATE);
+                        } else {
+                            batch.add(buildMedia(game, reader.getString(1), reader.getString(2),
+                                    reader.getString(3), reader.getString(4), stats));
+                            stats.incrementCreated();
+
+                            if (stats.getCreated() % 5000 == 0) {
+                                log.info("✅ {} media importados...", String.format("%,d", stats.getCreated()));
+                            }
+                        }
                     }
-
                 } catch (Exception e) {
                     log.warn("❌ Error línea {}: {}", lineNumber, e.getMessage());
-                    if (lineNumber <= 10) {
-                        log.debug("Contenido: {}", CsvUtils.truncate(String.join(" | ", line), 200));
-                    }
-                    stats.incrementSkipped();
+                    stats.incrementSkipped(SkipReason.PROCESSING_ERROR);
+                }
+
+                if (batch.size() >= BATCH_SIZE) {
+                    commitBatch(batch, stats, reader, lineNumber, ++batchNumber);
                 }
             }
 
-            // ---- Guardar último lote ----
             if (!batch.isEmpty()) {
-                CsvUtils.saveBatchAndClear(batch, mediaRepo::saveAll, stats, entityManager);
+                commitBatch(batch, stats, reader, lineNumber, ++batchNumber);
             }
 
-            // ---- Estadísticas finales ----
             CsvUtils.logFinalStatistics(stats, startTime, "Media");
+            checkpointService.clear(CHECKPOINT_KEY);
 
         } catch (Exception e) {
             log.error("❌ Error crítico en importación de media", e);
@@ -164,6 +196,160 @@ public class MediaCsvImporter {
         return stats;
     }
 
+    /**
+     * Guarda el lote y el checkpoint (byte tras el registro actual) en una transacción
+     * independiente. Si falla, el lote cuenta como saltado y el checkpoint no avanza.
+     */
+    private void commitBatch(List<GameMedia> batch, CsvImportStatisticsDto stats,
+                             MappedCsvReader reader, int lineNumber, int batchNumber) {
+        if (DryRun.isActive()) {
+            batch.clear();
+            return;
+        }
+        long start = System.nanoTime();
+        ImportEvents.BatchFlush event = ImportEvents.BatchFlush.start();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                saveFunction().apply(batch);
+                entityManager.flush();
+                entityManager.clear();
+                if (checkpointService.isEnabled()) {
+                    checkpointService.save(CHECKPOINT_KEY, reader, reader.position(), lineNumber, batchNumber);
+                }
+            });
+            ImportProgress.recordBatch(System.nanoTime() - start, batch.size());
+            event.complete(stats, batch.size(), true);
+        } catch (Exception e) {
+            event.complete(stats, batch.size(), false);
+            log.error("❌ Error guardando lote {} de {} media: {}", batchNumber, batch.size(), e.getMessage());
+            stats.addCreated(-batch.size());
+            stats.addSkipped(SkipReason.WRITE_FAILED, batch.size());
+        } finally {
+            batch.clear();
+        }
+    }
+
+    // En modo upsert la media existente se reemplaza: solo se filtran los repetidos del CSV
+    private LongHashSet loadExistingMedia() {
+        if (DryRun.isActive()) {
+            log.info("🧪 Dry run: sin media existente, solo se filtran los repetidos del CSV");
+            return new LongHashSet();
+        }
+        if (upsertWriter.isUpsertMode()) {
+            log.info("🔁 Modo upsert: la media existente se reemplaza");
+            return new LongHashSet();
+        }
+        LongHashSet existingMediaAppIds = mediaRepo.findAllGameAppIds();
+        log.info("🖼️ Media existente: {} juegos", existingMediaAppIds.size());
+        return existingMediaAppIds;
+    }
+
+    private Function<List<GameMedia>, Iterable<GameMedia>> saveFunction() {
+        if (upsertWriter.isUpsertMode()) {
+            return upsertWriter::upsertMedia;
+        }
+        return statelessWriter.isEnabled(DATASET) ? statelessWriter::insert : mediaRepo::saveAll;
+    }
+
+    /**
+     * Fila del CSV que ha pasado los filtros y falta convertir en entidad.
+     */
+    private record MediaRow(Game game, String[] line, int lineNumber) {
+    }
+
+    /**
+     * Lee hasta la siguiente fila que hay que importar, contando y saltando las demás.
+     * @return null al acabar el archivo
+     */
+    private MediaRow nextRow(CSVReader reader, int[] lineNumber, CsvImportStatisticsDto stats,
+                             GameReferences games, LongHashSet existingMediaAppIds) throws Exception {
+        String[] line;
+        while ((line = reader.readNext()) != null) {
+            ImportProgress.checkCancelled();
+            lineNumber[0]++;
+            stats.incrementProcessed();
+
+            if (line.length < EXPECTED_HEADER_ALTERNATIVES.length) {
+                log.warn("⚠️ Línea {}: solo {} campos (se requieren {})",
+                        lineNumber[0], line.length, EXPECTED_HEADER_ALTERNATIVES.length);
+                stats.incrementSkipped(SkipReason.MALFORMED_ROW);
+                continue;
+            }
+
+            // ---- AppId ----
+            Long appId = CsvUtils.parseLong(line[0].trim()).orElse(null);
+            if (appId == null) {
+                log.warn("⚠️ Línea {}: appId inválido '{}'", lineNumber[0], line[0]);
+                stats.incrementSkipped(SkipReason.INVALID_APP_ID);
+                continue;
+            }
+
+            // ---- Juego existe? ----
+            Game game = games.get(appId);
+            if (game == null) {
+                if (stats.getSkipped() % 1000 == 0) {
+                    log.debug("⏭️ Juego {} no encontrado", appId);
+                }
+                stats.incrementSkipped(SkipReason.UNKNOWN_GAME);
+                continue;
+            }
+
+            // ---- Ya tiene media? (o repetido en el CSV) ----
+            if (!existingMediaAppIds.add(appId)) {
+                stats.incrementSkipped(SkipReason.DUPLICATE);
+                continue;
+            }
+
+            return new MediaRow(game, line, lineNumber[0]);
+        }
+        return null;
+    }
+
+    /**
+     * Crea el GameMedia de una fila (incluido el parseo de screenshots y movies).
+     * Puede correr en un worker del pipeline.
+     */
+    private GameMedia buildMedia(MediaRow row, CsvImportStatisticsDto stats) {
+        String[] line = row.line();
+        try {
+            GameMedia media = buildMedia(row.game(), line[1], line[2], line[3], line[4], stats);
+            stats.incrementCreated();
+
+            if (stats.getCreated() % 5000 == 0) {
+                log.info("✅ {} media importados...", String.format("%,d", stats.getCreated()));
+            }
+            return media;
+
+        } catch (Exception e) {
+            log.warn("❌ Error línea {}: {}", row.lineNumber(), e.getMessage());
+            if (row.lineNumber() <= 10) {
+                log.debug("Contenido: {}", CsvUtils.truncate(String.join(" | ", line), 200));
+            }
+            stats.incrementSkipped(SkipReason.PROCESSING_ERROR);
+            return null;
+        }
+    }
+
+    private GameMedia buildMedia(Game game, String headerImage, String screenshotsJson,
+                                 String background, String moviesJson, CsvImportStatisticsDto stats) {
+        GameMedia media = new GameMedia();
+        media.setGame(game);
+        media.setHeaderImage(parseHeaderImage(headerImage));
+        media.setBackground(parseBackground(background));
+
+        ImportEvents.MediaJsonParse event = ImportEvents.MediaJsonParse.start();
+
+        // ---- Parsear screenshots (JSON) ----
+        media.setScreenshots(parseScreenshots(screenshotsJson));
+
+        // ---- Parsear movies (JSON) ----
+        media.setMovies(parseMoviesRobust(moviesJson));
+
+        event.complete(stats, jsonLength(screenshotsJson) + jsonLength(moviesJson),
+                media.getScreenshots().size(), media.getMovies().size());
+        return media;
+    }
+
     // =========================================================================
     // PARSEO DE CAMPOS ESPECÍFICOS
     // =========================================================================
@@ -177,7 +363,7 @@ public class MediaCsvImporter {
     }
 
     /**
-     * Parsea el JSON de screenshots y extrae la URL 'path_full' de cada objeto.
+     * Extrae la URL 'path_full' de cada screenshot con {@link MediaJsonExtractor}.
      * Ejemplo: [{'id':0,'path_thumbnail':'...','path_full':'...'}, ...]
      */
     private List<String> parseScreenshots(String json) {
@@ -185,24 +371,17 @@ public class MediaCsvImporter {
             return Collections.emptyList();
         }
         try {
-            // Reemplazar comillas simples por dobles para JSON válido
-            String validJson = json.replace("'", "\"");
-            List<Map<String, Object>> list = objectMapper.readValue(validJson,
-                    new TypeReference<List<Map<String, Object>>>() {});
-            return list.stream()
-                    .map(map -> (String) map.get("path_full"))
-                    .filter(Objects::nonNull)
-                    .toList();
-        } catch (Exception e) {
+            return MediaJsonExtractor.screenshotUrls(json);
+        } catch (IllegalArgumentException e) {
             log.warn("⚠️ Error parseando screenshots JSON: {}", e.getMessage());
             return Collections.emptyList();
         }
     }
 
     /**
-     * Parsea el campo 'movies' de forma robusta.
+     * Extrae las URLs de vídeo del campo 'movies' (mp4 'max' si existe, si no webm).
      * El campo puede ser:
-     * - Un array JSON vacío: []
+     * - Un array vacío: []
      * - Un array con objetos (formato antiguo o nuevo)
      * - Un booleano: True / False (en algunos registros antiguos)
      * - Una cadena vacía
@@ -212,63 +391,23 @@ public class MediaCsvImporter {
         if (isEmptyJson(json)) {
             return Collections.emptyList();
         }
-
-        // Si el valor es "True" o "False" (booleano en mayúscula), no hay videos
-        if (json.trim().equalsIgnoreCase("true") || json.trim().equalsIgnoreCase("false")) {
-            return Collections.emptyList();
-        }
-
-        // Intentar parsear como array JSON
         try {
-            // Reemplazar comillas simples por dobles
-            String validJson = json.replace("'", "\"");
-            List<Map<String, Object>> list = objectMapper.readValue(validJson,
-                    new TypeReference<List<Map<String, Object>>>() {});
-            return extractMovieUrls(list);
-        } catch (Exception e) {
+            return MediaJsonExtractor.movieUrls(json);
+        } catch (IllegalArgumentException e) {
             log.debug("No se pudo parsear movies como array JSON: {}", e.getMessage());
             return Collections.emptyList();
         }
     }
 
-    /**
-     * Extrae las URLs de los objetos de películas.
-     * Prefiere mp4 sobre webm, y la calidad 'max' si existe.
-     */
-    private List<String> extractMovieUrls(List<Map<String, Object>> moviesList) {
-        List<String> urls = new ArrayList<>();
-        for (Map<String, Object> movie : moviesList) {
-            // Intentar obtener mp4.max
-            Object mp4 = movie.get("mp4");
-            if (mp4 instanceof Map) {
-                Object max = ((Map<?, ?>) mp4).get("max");
-                if (max instanceof String) {
-                    urls.add((String) max);
-                    continue;
-                }
-            } else if (mp4 instanceof String) {
-                urls.add((String) mp4);
-                continue;
-            }
-
-            // Si no hay mp4, probar webm.max
-            Object webm = movie.get("webm");
-            if (webm instanceof Map) {
-                Object max = ((Map<?, ?>) webm).get("max");
-                if (max instanceof String) {
-                    urls.add((String) max);
-                }
-            } else if (webm instanceof String) {
-                urls.add((String) webm);
-            }
-        }
-        return urls;
-    }
-
     /**
      * Determina si un campo JSON está vacío o es nulo.
      */
     private boolean isEmptyJson(String json) {
         return json == null || json.isBlank() || "[]".equals(json.trim()) || "{}".equals(json.trim());
     }
+
+    // Caracteres de un campo JSON crudo (0 si es nulo), para el evento de parseo
+    private static int jsonLength(String json) {
+        return json != null ? json.length() : 0;
+    }
 }
\ No newline at end of file
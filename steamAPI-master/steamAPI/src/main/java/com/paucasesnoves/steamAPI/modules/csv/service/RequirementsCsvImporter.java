@@ -3,29 +3,33 @@ package com.paucasesnoves.steamAPI.modules.csv.service;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
 import com.paucasesnoves.steamAPI.modules.csv.dto.CsvImportStatisticsDto;
+import com.paucasesnoves.steamAPI.modules.csv.dto.SkipReason;
 import com.paucasesnoves.steamAPI.modules.games.domain.Game;
 import com.paucasesnoves.steamAPI.modules.games.domain.GameRequirements;
-import com.paucasesnoves.steamAPI.modules.games.repository.GameRepository;
 import com.paucasesnoves.steamAPI.modules.games.repository.GameRequirementsRepository;
+import com.paucasesnoves.steamAPI.modules.games.repository.GameRepository;
 import com.paucasesnoves.steamAPI.utils.CsvUtils;
+import com.paucasesnoves.steamAPI.utils.LongHashSet;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Function;
 
 @Service
 public class RequirementsCsvImporter {
 
     private static final Logger log = LoggerFactory.getLogger(RequirementsCsvImporter.class);
     private static final int BATCH_SIZE = 1000;
+    private static final String DATASET = "requirements";
 
     // Cabecera flexible: acepta "appid" o "steam_appid"
     private static final String[][] EXPECTED_HEADER_ALTERNATIVES = {
@@ -41,21 +45,45 @@ public class RequirementsCsvImporter {
     private GameRepository gameRepo;
     @Autowired
     private GameRequirementsRepository requirementsRepo;
+    @Autowired
+    private SatelliteUpsertWriter upsertWriter;
+    @Autowired
+    private StatelessSatelliteWriter statelessWriter;
+    @Autowired
+    private ImportPipeline importPipeline;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
     @PersistenceContext
     private EntityManager entityManager;
 
-    @Transactional
+    /**
+     * Sin transacción envolvente: cada lote se confirma en la suya, así que el tamaño de
+     * las transacciones no depende del archivo y un fallo tardío no deshace lo importado.
+     */
     public CsvImportStatisticsDto importCsv(InputStream inputStream) {
         long startTime = System.currentTimeMillis();
         CsvImportStatisticsDto stats = new CsvImportStatisticsDto();
-
-        // 1. Precargar juegos y requisitos existentes
-        Map<Long, Game> gameCache = CsvUtils.buildEntityCache(gameRepo.findAll(), Game::getAppId);
-        log.info("📦 Juegos precargados: {} entidades", gameCache.size());
-
-        Set<Long> existingRequirementsAppIds = CsvUtils.buildExistenceCache(
-                requirementsRepo.findAll(), req -> req.getGame().getAppId());
-        log.info("📋 Requisitos existentes: {} juegos", existingRequirementsAppIds.size());
+        ImportProgress.track(stats);
+
+        // 1. Precargar appIds de juegos y de requisitos existentes (en un dry run, stand-ins en memoria)
+        GameReferences games = GameReferences.load(gameRepo, entityManager);
+
+        // En modo upsert los requisitos existentes se reemplazan: solo se filtran los repetidos del CSV
+        LongHashSet existingRequirementsAppIds;
+        Function<List<GameRequirements>, Iterable<GameRequirements>> saveFunction;
+        if (DryRun.isActive()) {
+            existingRequirementsAppIds = new LongHashSet();
+            saveFunction = requirementsRepo::saveAll; // ImportPersistence descarta los lotes sin llamarla
+            log.info("🧪 Dry run: sin requisitos existentes, solo se filtran los repetidos del CSV");
+        } else if (upsertWriter.isUpsertMode()) {
+            existingRequirementsAppIds = new LongHashSet();
+            saveFunction = upsertWriter::upsertRequirements;
+            log.info("🔁 Modo upsert: los requisitos existentes se reemplazan");
+        } else {
+            existingRequirementsAppIds = requirementsRepo.findAllGameAppIds();
+            saveFunction = statelessWriter.isEnabled(DATASET) ? statelessWriter::insert : requirementsRepo::saveAll;
+            log.info("📋 Requisitos existentes: {} juegos", existingRequirementsAppIds.size());
+        }
 
         // 2. Configurar parser CSV y leer cabecera
         try (CSVReader reader = new CSVReaderBuilder(
@@ -64,86 +92,20 @@ public class RequirementsCsvImporter {
                 .build()) {
 
             String[] header = reader.readNext();
-            if (!CsvUtils.isHeaderFlexibleValid(header, EXPECTED_HEADER_ALTERNATIVES)) {
+            if (!ImportEvents.HeaderValidation.validate(header, h -> CsvUtils.isHeaderFlexibleValid(h, EXPECTED_HEADER_ALTERNATIVES))) {
                 log.error("❌ Cabecera inválida. Encontrada: {}", Arrays.toString(header));
                 return stats;
             }
             log.info("📋 Cabecera válida: {}", String.join(" | ", header));
 
-            List<GameRequirements> batch = new ArrayList<>(BATCH_SIZE);
-            String[] line;
-            int lineNumber = 1;
-
-            while ((line = reader.readNext()) != null) {
-                lineNumber++;
-                stats.incrementProcessed();
-
-                try {
-                    if (line.length < EXPECTED_HEADER_ALTERNATIVES.length) {
-                        log.warn("⚠️ Línea {}: solo {} campos (se requieren {})",
-                                lineNumber, line.length, EXPECTED_HEADER_ALTERNATIVES.length);
-                        stats.incrementSkipped();
-                        continue;
-                    }
-
-                    // ---- AppId ----
-                    Long appId = CsvUtils.parseLong(line[0].trim()).orElse(null);
-                    if (appId == null) {
-                        log.warn("⚠️ Línea {}: appId inválido '{}'", lineNumber, line[0]);
-                        stats.incrementSkipped();
-                        continue;
-                    }
-
-                    // ---- Juego existe? ----
-                    Game game = gameCache.get(appId);
-                    if (game == null) {
-                        if (stats.getSkipped() % 1000 == 0) {
-                            log.debug("⏭️ Juego {} no encontrado", appId);
-                        }
-                        stats.incrementSkipped();
-                        continue;
-                    }
-
-                    // ---- Ya tiene requisitos? ----
-                    if (existingRequirementsAppIds.contains(appId)) {
-                        stats.incrementSkipped();
-                        continue;
-                    }
-
-                    // ---- Crear GameRequirements ----
-                    GameRequirements requirements = new GameRequirements();
-                    requirements.setGame(game);
-                    requirements.setPcRequirements(cleanRequirementField(line[1]));
-                    requirements.setMacRequirements(cleanRequirementField(line[2]));
-                    requirements.setLinuxRequirements(cleanRequirementField(line[3]));
-                    requirements.setMinimum(cleanTextField(line[4]));
-                    requirements.setRecommended(cleanTextField(line[5]));
-
-                    batch.add(requirements);
-                    stats.incrementCreated();
-
-                    if (batch.size() >= BATCH_SIZE) {
-                        CsvUtils.saveBatchAndClear(batch, requirementsRepo::saveAll, stats, entityManager);
-                        batch.clear();
-                    }
-
-                    if (stats.getCreated() % 5000 == 0) {
-                        log.info("✅ {} requisitos importados...", String.format("%,d", stats.getCreated()));
-                    }
-
-                } catch (Exception e) {
-                    log.warn("❌ Error línea {}: {}", lineNumber, e.getMessage());
-                    if (lineNumber <= 10) {
-                        log.debug("Contenido: {}", CsvUtils.truncate(String.join(" | ", line), 200));
-                    }
-                    stats.incrementSkipped();
-                }
-            }
-
-            // ---- Guardar último lote ----
-            if (!batch.isEmpty()) {
-                CsvUtils.saveBatchAndClear(batch, requirementsRepo::saveAll, stats, entityManager);
-            }
+            // Lectura y filtrado aquí; limpieza de campos en los workers; escritura por lotes
+            int[] lineNumber = {1};
+            importPipeline.run(
+                    () -> nextRow(reader, lineNumber, stats, games, existingRequirementsAppIds),
+                    row -> buildRequirements(row, stats),
+                    BATCH_SIZE,
+                    batch -> ImportPersistence.saveBatchInTransaction(batch, saveFunction, stats,
+                            entityManager, transactionTemplate));
 
             // ---- Estadísticas finales ----
             CsvUtils.logFinalStatistics(stats, startTime, "Requisitos");
@@ -156,6 +118,91 @@ public class RequirementsCsvImporter {
         return stats;
     }
 
+    /**
+     * Fila del CSV que ha pasado los filtros y falta convertir en entidad.
+     */
+    private record RequirementsRow(Game game, String[] line, int lineNumber) {
+    }
+
+    /**
+     * Lee hasta la siguiente fila que hay que importar, contando y saltando las demás.
+     * @return null al acabar el archivo
+     */
+    private RequirementsRow nextRow(CSVReader reader, int[] lineNumber, CsvImportStatisticsDto stats,
+                                    GameReferences games, LongHashSet existingRequirementsAppIds)
+            throws Exception {
+        String[] line;
+        while ((line = reader.readNext()) != null) {
+            ImportProgress.checkCancelled();
+            lineNumber[0]++;
+            stats.incrementProcessed();
+
+            if (line.length < EXPECTED_HEADER_ALTERNATIVES.length) {
+                log.warn("⚠️ Línea {}: solo {} campos (se requieren {})",
+                        lineNumber[0], line.length, EXPECTED_HEADER_ALTERNATIVES.length);
+                stats.incrementSkipped(SkipReason.MALFORMED_ROW);
+                continue;
+            }
+
+            // ---- AppId ----
+            Long appId = CsvUtils.parseLong(line[0].trim()).orElse(null);
+            if (appId == null) {
+                log.warn("⚠️ Línea {}: appId inválido '{}'", lineNumber[0], line[0]);
+                stats.incrementSkipped(SkipReason.INVALID_APP_ID);
+                continue;
+            }
+
+            // ---- Juego existe? ----
+            Game game = games.get(appId);
+            if (game == null) {
+                if (stats.getSkipped() % 1000 == 0) {
+                    log.debug("⏭️ Juego {} no encontrado", appId);
+                }
+                stats.incrementSkipped(SkipReason.UNKNOWN_GAME);
+                continue;
+            }
+
+            // ---- Ya tiene requisitos? (o repetido en el CSV) ----
+            if (!existingRequirementsAppIds.add(appId)) {
+                stats.incrementSkipped(SkipReason.DUPLICATE);
+                continue;
+            }
+
+            return new RequirementsRow(game, line, lineNumber[0]);
+        }
+        return null;
+    }
+
+    /**
+     * Crea el GameRequirements de una fila. Puede correr en un worker del pipeline.
+     */
+    private GameRequirements buildRequirements(RequirementsRow row, CsvImportStatisticsDto stats) {
+        String[] line = row.line();
+        try {
+            GameRequirements requirements = new GameRequirements();
+            requirements.setGame(row.game());
+            requirements.setPcRequirements(cleanRequirementField(line[1]));
+            requirements.setMacRequirements(cleanRequirementField(line[2]));
+            requirements.setLinuxRequirements(cleanRequirementField(line[3]));
+            requirements.setMinimum(cleanTextField(line[4]));
+            requirements.setRecommended(cleanTextField(line[5]));
+            stats.incrementCreated();
+
+            if (stats.getCreated() % 5000 == 0) {
+                log.info("✅ {} requisitos importados...", String.format("%,d", stats.getCreated()));
+            }
+            return requirements;
+
+        } catch (Exception e) {
+            log.warn("❌ Error línea {}: {}", row.lineNumber(), e.getMessage());
+            if (row.lineNumber() <= 10) {
+                log.debug("Contenido: {}", CsvUtils.truncate(String.join(" | ", line), 200));
+            }
+            stats.incrementSkipped(SkipReason.PROCESSING_ERROR);
+            return null;
+        }
+    }
+
     // =========================================================================
     // UTILIDADES DE LIMPIEZA DE CAMPOS
     // =========================================================================
@@ -0,0 +1,119 @@
+package com.paucasesnoves.steamAPI.modules.csv.service;
+
+import com.paucasesnoves.steamAPI.modules.games.domain.GameDescription;
+import com.paucasesnoves.steamAPI.modules.games.domain.GameMedia;
+import com.paucasesnoves.steamAPI.modules.games.domain.GameRequirements;
+import com.paucasesnoves.steamAPI.modules.games.domain.GameSupportInfo;
+import com.paucasesnoves.steamAPI.modules.games.domain.StringListConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Modo upsert de las tablas satélite (descripciones, media, requisitos y soporte).
+ *
+ * En modo insert los importadores saltan los juegos que ya tienen fila, así que las
+ * correcciones de un volcado nuevo nunca llegan a la BD. En modo upsert cada lote se
+ * escribe con un INSERT multi-fila ... ON DUPLICATE KEY UPDATE sobre game_id, que es la
+ * clave primaria de cada tabla: sin leer antes qué existe.
+ * Los métodos devuelven el mismo lote para encajar como saveFunction de
+ * {@link ImportPersistence#saveBatchInTransaction}.
+ */
+@Component
+public class SatelliteUpsertWriter {
+
+    private static final String[] DESCRIPTION_COLUMNS = {
+            "game_id", "detailed_description", "about_the_game", "short_description"
+    };
+    private static final String[] REQUIREMENTS_COLUMNS = {
+            "game_id", "pc_requirements", "mac_requirements", "linux_requirements", "minimum", "recommended"
+    };
+    private static final String[] SUPPORT_COLUMNS = {
+            "game_id", "website", "support_url", "support_email"
+    };
+    private static final String[] MEDIA_COLUMNS = {
+            "game_id", "header_image", "background", "screenshots", "movies"
+    };
+
+    /**
+     * "insert" (por defecto) salta los juegos que ya tienen fila; "upsert" la reemplaza.
+     */
+    @Value("${steam.import.satellite-mode:insert}")
+    private String satelliteMode;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public boolean isUpsertMode() {
+        return "upsert".equalsIgnoreCase(satelliteMode.trim());
+    }
+
+    public List<GameDescription> upsertDescriptions(List<GameDescription> batch) {
+        ImportPersistence.upsertBatch(jdbcTemplate, "game_descriptions", DESCRIPTION_COLUMNS, updateColumns(DESCRIPTION_COLUMNS),
+                batch, desc -> ImportPersistence.textBytes(desc.getDetailedDescription(), desc.getAboutTheGame(),
+                        desc.getShortDescription()),
+                (ps, offset, desc) -> {
+                    ps.setLong(offset + 1, desc.getGame().getAppId());
+                    ps.setString(offset + 2, desc.getDetailedDescription());
+                    ps.setString(offset + 3, desc.getAboutTheGame());
+                    ps.setString(offset + 4, desc.getShortDescription());
+                });
+        return batch;
+    }
+
+    public List<GameRequirements> upsertRequirements(List<GameRequirements> batch) {
+        ImportPersistence.upsertBatch(jdbcTemplate, "game_requirements", REQUIREMENTS_COLUMNS, updateColumns(REQUIREMENTS_COLUMNS),
+                batch, req -> ImportPersistence.textBytes(req.getPcRequirements(), req.getMacRequirements(),
+                        req.getLinuxRequirements(), req.getMinimum(), req.getRecommended()),
+                (ps, offset, req) -> {
+                    ps.setLong(offset + 1, req.getGame().getAppId());
+                    ps.setString(offset + 2, req.getPcRequirements());
+                    ps.setString(offset + 3, req.getMacRequirements());
+                    ps.setString(offset + 4, req.getLinuxRequirements());
+                    ps.setString(offset + 5, req.getMinimum());
+                    ps.setString(offset + 6, req.getRecommended());
+                });
+        return batch;
+    }
+
+    public List<GameSupportInfo> upsertSupport(List<GameSupportInfo> batch) {
+        ImportPersistence.upsertBatch(jdbcTemplate, "game_support_info", SUPPORT_COLUMNS, updateColumns(SUPPORT_COLUMNS),
+                batch, support -> ImportPersistence.textBytes(support.getWebsite(), support.getSupportUrl(),
+                        support.getSupportEmail()),
+                (ps, offset, support) -> {
+                    ps.setLong(offset + 1, support.getGame().getAppId());
+                    ps.setString(offset + 2, support.getWebsite());
+                    ps.setString(offset + 3, support.getSupportUrl());
+                    ps.setString(offset + 4, support.getSupportEmail());
+                });
+        return batch;
+    }
+
+    /**
+     * Upsert de game_media con sus listas, que van codificadas en sus propias columnas.
+     */
+    public List<GameMedia> upsertMedia(List<GameMedia> batch) {
+        ImportPersistence.upsertBatch(jdbcTemplate, "game_media", MEDIA_COLUMNS, updateColumns(MEDIA_COLUMNS),
+                batch, media -> ImportPersistence.textBytes(media.getHeaderImage(), media.getBackground())
+                        + ImportPersistence.textBytes(media.getScreenshots().toArray(String[]::new))
+                        + ImportPersistence.textBytes(media.getMovies().toArray(String[]::new)),
+                (ps, offset, media) -> {
+                    ps.setLong(offset + 1, media.getGame().getAppId());
+                    ps.setString(offset + 2, media.getHeaderImage());
+                    ps.setString(offset + 3, media.getBackground());
+                    ps.setString(offset + 4, StringListConverter.encode(media.getScreenshots()));
+                    ps.setString(offset + 5, StringListConverter.encode(media.getMovies()));
+                });
+        return batch;
+    }
+
+    // Todas las columnas salvo game_id, que es la clave del upsert
+    private static String[] updateColumns(String[] columns) {
+        String[] update = new String[columns.length - 1];
+        System.arraycopy(columns, 1, update, 0, update.length);
+        return update;
+    }
+}
@@ -0,0 +1,186 @@
+package com.paucasesnoves.steamAPI.modules.csv.service;
+
+import com.paucasesnoves.steamAPI.modules.games.domain.StringListConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cambios de esquema que ddl-auto=update no sabe hacer sobre una base de datos existente.
+ * <p>
+ * Corre al terminar de crear los singletons: Hibernate ya ha añadido las columnas nuevas y
+ * el servidor web todavía no acepta peticiones, así que ningún import puede solaparse con
+ * ella. Cada paso comprueba antes si hace falta, de modo que en una base nueva (o ya
+ * migrada) no hace nada.
+ */
+@Component
+public class SchemaMigration implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigration.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    // Tablas 1:1 con games cuya clave primaria es game_id (@MapsId)
+    private static final String[] SATELLITE_TABLES = {
+            "game_media", "game_descriptions", "game_requirements", "game_support_info"
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        boolean screenshots = migrateMediaList("game_screenshots", "screenshot", "screenshots");
+        boolean movies = migrateMediaList("game_movies", "movie", "movies");
+        for (String table : SATELLITE_TABLES) {
+            // Las tablas de listas antiguas apuntan a game_media.id: sin ellas no se puede quitar
+            if (!table.equals("game_media") || (screenshots && movies)) {
+                migrateSharedKey(table);
+            }
+        }
+        for (String table : SATELLITE_TABLES) {
+            if (tableExists(table) && columnExists(table, "id")) {
+                throw new IllegalStateException("La tabla " + table + " sigue con la clave id: "
+                        + "el modelo espera game_id como clave primaria (ver los errores anteriores)");
+            }
+        }
+    }
+
+    // =========================================================================
+    // CLAVE COMPARTIDA DE LAS TABLAS SATÉLITE (id IDENTITY → game_id)
+    // =========================================================================
+
+    /**
+     * Sustituye la clave id IDENTITY por game_id, que ya era única y no nula. ddl-auto=update
+     * no cambia claves primarias, y con la antigua el modelo y la tabla no coincidirían: la
+     * unicidad de game_id de la que dependen los upserts no estaría declarada en ningún sitio.
+     */
+    private void migrateSharedKey(String table) {
+        if (!tableExists(table) || !columnExists(table, "id")) {
+            return;
+        }
+        Integer invalid = jdbcTemplate.queryForObject("SELECT COUNT(*) - COUNT(DISTINCT game_id) FROM " + table,
+                Integer.class);
+        if (invalid == null || invalid > 0) {
+            log.error("❌ {}: {} filas sin game_id o con game_id repetido; la clave no se cambia", table, invalid);
+            return;
+        }
+        long start = System.currentTimeMillis();
+        jdbcTemplate.execute("ALTER TABLE " + table + " DROP PRIMARY KEY, DROP COLUMN id, ADD PRIMARY KEY (game_id)");
+        log.info("🔑 {}: clave primaria movida de id a game_id en {} ms", table, System.currentTimeMillis() - start);
+    }
+
+    // =========================================================================
+    // LISTAS DE GAME_MEDIA (game_screenshots / game_movies → columnas codificadas)
+    // =========================================================================
+
+    /**
+     * Copia una tabla de lista antigua a su columna de game_media (ver StringListConverter)
+     * y la borra; si se quedara, su clave foránea a game_media impediría borrar juegos.
+     * <p>
+     * game_media_id apunta a la clave de game_media de cuando se escribió: el id IDENTITY
+     * en el esquema anterior a la clave compartida, o el appId (game_id) después. Solo se
+     * rellenan las columnas que siguen a NULL, por páginas de ids con una transacción cada
+     * una, y la tabla solo se borra si todas sus listas han llegado a game_media.
+     *
+     * @return true si la tabla ya no existe
+     */
+    private boolean migrateMediaList(String table, String valueColumn, String targetColumn) {
+        if (!tableExists(table)) {
+            return true;
+        }
+        long start = System.currentTimeMillis();
+        String key = columnExists("game_media", "id") ? "id" : "game_id";
+        String update = "UPDATE game_media SET " + targetColumn + " = ? WHERE " + key + " = ? AND "
+                + targetColumn + " IS NULL";
+
+        long after = Long.MIN_VALUE;
+        int lists = 0;
+        while (true) {
+            long from = after;
+            List<Long> ids = jdbcTemplate.queryForList("SELECT DISTINCT game_media_id FROM " + table
+                    + " WHERE game_media_id > ? ORDER BY game_media_id LIMIT " + BATCH_SIZE, Long.class, from);
+            if (ids.isEmpty()) {
+                break;
+            }
+            long to = ids.get(ids.size() - 1);
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(update, readLists(table, valueColumn, from, to)));
+            lists += ids.size();
+            after = to;
+        }
+
+        Integer expected = jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT game_media_id) FROM " + table
+                + " WHERE " + valueColumn + " IS NOT NULL", Integer.class);
+        Integer copied = jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT s.game_media_id) FROM " + table
+                + " s JOIN game_media m ON m." + key + " = s.game_media_id WHERE s." + valueColumn
+                + " IS NOT NULL AND m." + targetColumn + " IS NOT NULL", Integer.class);
+        if (expected == null || !expected.equals(copied)) {
+            log.error("❌ {}: solo {} de {} listas están en game_media.{}; la tabla se conserva",
+                    table, copied, expected, targetColumn);
+            return false;
+        }
+        // DDL: MySQL confirma por su cuenta
+        jdbcTemplate.execute("DROP TABLE " + table);
+        log.info("🗂️ {}: {} listas copiadas a game_media.{} y tabla eliminada en {} ms",
+                table, lists, targetColumn, System.currentTimeMillis() - start);
+        return true;
+    }
+
+    /**
+     * Listas de los ids de (from, to], codificadas y listas para el UPDATE. La tabla antigua
+     * no tiene columna de orden: cada lista queda en el orden en que la devuelve MySQL.
+     */
+    private List<Object[]> readLists(String table, String valueColumn, long from, long to) {
+        Map<Long, List<String>> lists = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT game_media_id, " + valueColumn + " FROM " + table
+                        + " WHERE game_media_id > ? AND game_media_id <= ? ORDER BY game_media_id",
+                (RowCallbackHandler) rs -> {
+                    List<String> values = lists.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>());
+                    String value = rs.getString(2);
+                    if (value != null) {
+                        values.add(value);
+                    }
+                }, from, to);
+
+        List<Object[]> rows = new ArrayList<>(lists.size());
+        lists.forEach((id, values) -> {
+            if (!values.isEmpty()) {
+                rows.add(new Object[]{StringListConverter.encode(values), id});
+            }
+        });
+        return rows;
+    }
+
+    // =========================================================================
+    // CATÁLOGO
+    // =========================================================================
+
+    private boolean tableExists(String table) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = ?",
+                Integer.class, table);
+        return count != null && count > 0;
+    }
+
+    private boolean columnExists(String table, String column) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.columns WHERE table_schema = DATABASE() "
+                        + "AND table_name = ? AND column_name = ?",
+                Integer.class, table, column);
+        return count != null && count > 0;
+    }
+}
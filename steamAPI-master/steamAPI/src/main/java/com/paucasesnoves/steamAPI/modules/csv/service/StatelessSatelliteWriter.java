@@ -0,0 +1,59 @@
+package com.paucasesnoves.steamAPI.modules.csv.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Escritura de las tablas satélite (descripciones, media, requisitos y soporte) con una
+ * StatelessSession de Hibernate en lugar de saveAll.
+ *
+ * Los importadores solo insertan entidades nuevas que no vuelven a tocar, así que el
+ * contexto de persistencia de saveAll (merge, snapshot para el dirty checking, flush y
+ * clear de cada lote) es trabajo perdido. La StatelessSession inserta el lote tal cual,
+ * agrupando los INSERT en batches JDBC de hibernate.jdbc.batch_size. Corre sobre la
+ * conexión de la transacción del lote, así que se confirma o revierte con ella.
+ *
+ * Cada importador la usa si su dataset está en steam.import.stateless-datasets y el modo
+ * satélite es insert (en upsert manda {@link SatelliteUpsertWriter}). El método devuelve el
+ * mismo lote para encajar como saveFunction de {@link ImportPersistence#saveBatchInTransaction}.
+ */
+@Component
+public class StatelessSatelliteWriter {
+
+    /**
+     * Datasets satélite que se escriben con StatelessSession (p. ej. descriptions,media).
+     */
+    @Value("${steam.import.stateless-datasets:}")
+    private Set<String> statelessDatasets;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}")
+    private int jdbcBatchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public boolean isEnabled(String dataset) {
+        return statelessDatasets.contains(dataset);
+    }
+
+    public <T> List<T> insert(List<T> batch) {
+        Session session = entityManager.unwrap(Session.class);
+        session.doWork(connection -> {
+            // La conexión es de la transacción: la StatelessSession no la cierra ni la confirma
+            try (StatelessSession stateless = session.getSessionFactory().withStatelessOptions()
+                    .connection(connection)
+                    .openStatelessSession()) {
+                stateless.setJdbcBatchSize(jdbcBatchSize);
+                stateless.insertMultiple(batch);
+            }
+        });
+        return batch;
+    }
+}
@@ -3,11 +3,13 @@ package com.paucasesnoves.steamAPI.modules.csv.service;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
 import com.paucasesnoves.steamAPI.modules.csv.dto.CsvImportStatisticsDto;
+import com.paucasesnoves.steamAPI.modules.csv.dto.SkipReason;
 import com.paucasesnoves.steamAPI.modules.games.domain.Game;
 import com.paucasesnoves.steamAPI.modules.games.domain.GameSupportInfo;
-import com.paucasesnoves.steamAPI.modules.games.repository.GameRepository;
 import com.paucasesnoves.steamAPI.modules.games.repository.GameSupportInfoRepository;
+import com.paucasesnoves.steamAPI.modules.games.repository.GameRepository;
 import com.paucasesnoves.steamAPI.utils.CsvUtils;
+import com.paucasesnoves.steamAPI.utils.LongHashSet;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
@@ -26,6 +28,7 @@ public class SupportCsvImporter {
 
     private static final Logger log = LoggerFactory.getLogger(SupportCsvImporter.class);
     private static final int BATCH_SIZE = 1000;
+    private static final String DATASET = "support";
 
     // Cabecera flexible
     private static final String[][] EXPECTED_HEADER_ALTERNATIVES = {
@@ -37,20 +40,32 @@ public class SupportCsvImporter {
 
     @Autowired private GameRepository gameRepo;
     @Autowired private GameSupportInfoRepository supportRepo;
+    @Autowired private SatelliteUpsertWriter upsertWriter;
+    @Autowired private StatelessSatelliteWriter statelessWriter;
+    @Autowired private ImportPipeline importPipeline;
     @PersistenceContext private EntityManager entityManager;
     @Autowired private TransactionTemplate transactionTemplate;  // Inyectar TransactionTemplate
 
     public CsvImportStatisticsDto importCsv(InputStream inputStream) {
         long startTime = System.currentTimeMillis();
         CsvImportStatisticsDto stats = new CsvImportStatisticsDto();
-
-        // 1. Precargar juegos y soporte existente
-        Map<Long, Game> gameCache = CsvUtils.buildEntityCache(gameRepo.findAll(), Game::getAppId);
-        log.info("📦 Juegos precargados: {} entidades", gameCache.size());
-
-        Set<Long> existingSupportAppIds = CsvUtils.buildExistenceCache(
-                supportRepo.findAll(), support -> support.getGame().getAppId());
-        log.info("🛟 Soporte existente: {} juegos", existingSupportAppIds.size());
+        ImportProgress.track(stats);
+
+        // 1. Precargar appIds de juegos y de soporte existente (en un dry run, stand-ins en memoria)
+        GameReferences games = GameReferences.load(gameRepo, entityManager);
+
+        // En modo upsert el soporte existente se reemplaza: solo se filtran los repetidos del CSV
+        LongHashSet existingSupportAppIds;
+        if (DryRun.isActive()) {
+            existingSupportAppIds = new LongHashSet();
+            log.info("🧪 Dry run: sin soporte existente, solo se filtran los repetidos del CSV");
+        } else if (upsertWriter.isUpsertMode()) {
+            existingSupportAppIds = new LongHashSet();
+            log.info("🔁 Modo upsert: el soporte existente se reemplaza");
+        } else {
+            existingSupportAppIds = supportRepo.findAllGameAppIds();
+            log.info("🛟 Soporte existente: {} juegos", existingSupportAppIds.size());
+        }
 
         // 2. Configurar parser CSV
         try (CSVReader reader = new CSVReaderBuilder(
@@ -59,80 +74,19 @@ public class SupportCsvImporter {
                 .build()) {
 
             String[] header = reader.readNext();
-            if (!CsvUtils.isHeaderFlexibleValid(header, EXPECTED_HEADER_ALTERNATIVES)) {
+            if (!ImportEvents.HeaderValidation.validate(header, h -> CsvUtils.isHeaderFlexibleValid(h, EXPECTED_HEADER_ALTERNATIVES))) {
                 log.error("❌ Cabecera inválida. Encontrada: {}", Arrays.toString(header));
                 return stats;
             }
             log.info("📋 Cabecera válida: {}", String.join(" | ", header));
 
-            List<GameSupportInfo> batch = new ArrayList<>(BATCH_SIZE);
-            String[] line;
-            int lineNumber = 1;
-
-            while ((line = reader.readNext()) != null) {
-                lineNumber++;
-                stats.incrementProcessed();
-
-                try {
-                    if (line.length < EXPECTED_HEADER_ALTERNATIVES.length) {
-                        log.warn("⚠️ Línea {}: solo {} campos (se requieren {})",
-                                lineNumber, line.length, EXPECTED_HEADER_ALTERNATIVES.length);
-                        stats.incrementSkipped();
-                        continue;
-                    }
-
-                    Long appId = CsvUtils.parseLong(line[0].trim()).orElse(null);
-                    if (appId == null) {
-                        log.warn("⚠️ Línea {}: appId inválido '{}'", lineNumber, line[0]);
-                        stats.incrementSkipped();
-                        continue;
-                    }
-
-                    Game game = gameCache.get(appId);
-                    if (game == null) {
-                        if (stats.getSkipped() % 1000 == 0) {
-                            log.debug("⏭️ Juego {} no encontrado", appId);
-                        }
-                        stats.incrementSkipped();
-                        continue;
-                    }
-
-                    if (existingSupportAppIds.contains(appId)) {
-                        stats.incrementSkipped();
-                        continue;
-                    }
-
-                    GameSupportInfo info = new GameSupportInfo();
-                    info.setGame(game);
-                    info.setWebsite(cleanField(line[1]));
-                    info.setSupportUrl(cleanField(line[2]));
-                    info.setSupportEmail(cleanField(line[3]));
-
-                    batch.add(info);
-                    stats.incrementCreated();
-
-                    if (batch.size() >= BATCH_SIZE) {
-                        saveBatchInTransaction(batch, stats);
-                        batch.clear();
-                    }
-
-                    if (stats.getCreated() % 5000 == 0) {
-                        log.info("✅ {} soportes importados...", String.format("%,d", stats.getCreated()));
-                    }
-
-                } catch (Exception e) {
-                    log.warn("❌ Error línea {}: {}", lineNumber, e.getMessage());
-                    if (lineNumber <= 10) {
-                        log.debug("Contenido: {}", CsvUtils.truncate(String.join(" | ", line), 200));
-                    }
-                    stats.incrementSkipped();
-                }
-            }
-
-            // Guardar último lote
-            if (!batch.isEmpty()) {
-                saveBatchInTransaction(batch, stats);
-            }
+            // Lectura y filtrado aquí; limpieza de campos en los workers; escritura por lotes
+            int[] lineNumber = {1};
+            importPipeline.run(
+                    () -> nextRow(reader, lineNumber, stats, games, existingSupportAppIds),
+                    row -> buildSupport(row, stats),
+                    BATCH_SIZE,
+                    batch -> saveBatchInTransaction(batch, stats));
 
             // Estadísticas finales (corregido el formato)
             CsvUtils.logFinalStatistics(stats, startTime, "Soporte");
@@ -145,24 +99,117 @@ public class SupportCsvImporter {
         return stats;
     }
 
+    /**
+     * Fila del CSV que ha pasado los filtros y falta convertir en entidad.
+     */
+    private record SupportRow(Game game, String[] line, int lineNumber) {
+    }
+
+    /**
+     * Lee hasta la siguiente fila que hay que importar, contando y saltando las demás.
+     * @return null al acabar el archivo
+     */
+    private SupportRow nextRow(CSVReader reader, int[] lineNumber, CsvImportStatisticsDto stats,
+                               GameReferences games, LongHashSet existingSupportAppIds) throws Exception {
+        String[] line;
+        while ((line = reader.readNext()) != null) {
+            ImportProgress.checkCancelled();
+            lineNumber[0]++;
+            stats.incrementProcessed();
+
+            if (line.length < EXPECTED_HEADER_ALTERNATIVES.length) {
+                log.warn("⚠️ Línea {}: solo {} campos (se requieren {})",
+                        lineNumber[0], line.length, EXPECTED_HEADER_ALTERNATIVES.length);
+                stats.incrementSkipped(SkipReason.MALFORMED_ROW);
+                continue;
+            }
+
+            Long appId = CsvUtils.parseLong(line[0].trim()).orElse(null);
+            if (appId == null) {
+                log.warn("⚠️ Línea {}: appId inválido '{}'", lineNumber[0], line[0]);
+                stats.incrementSkipped(SkipReason.INVALID_APP_ID);
+                continue;
+            }
+
+            Game game = games.get(appId);
+            if (game == null) {
+                if (stats.getSkipped() % 1000 == 0) {
+                    log.debug("⏭️ Juego {} no encontrado", appId);
+                }
+                stats.incrementSkipped(SkipReason.UNKNOWN_GAME);
+                continue;
+            }
+
+            if (!existingSupportAppIds.add(appId)) {
+                stats.incrementSkipped(SkipReason.DUPLICATE);
+                continue;
+            }
+
+            return new SupportRow(game, line, lineNumber[0]);
+        }
+        return null;
+    }
+
+    /**
+     * Crea el GameSupportInfo de una fila. Puede correr en un worker del pipeline.
+     */
+    private GameSupportInfo buildSupport(SupportRow row, CsvImportStatisticsDto stats) {
+        String[] line = row.line();
+        try {
+            GameSupportInfo info = new GameSupportInfo();
+            info.setGame(row.game());
+            info.setWebsite(cleanField(line[1]));
+            info.setSupportUrl(cleanField(line[2]));
+            info.setSupportEmail(cleanField(line[3]));
+            stats.incrementCreated();
+
+            if (stats.getCreated() % 5000 == 0) {
+                log.info("✅ {} soportes importados...", String.format("%,d", stats.getCreated()));
+            }
+            return info;
+
+        } catch (Exception e) {
+            log.warn("❌ Error línea {}: {}", row.lineNumber(), e.getMessage());
+            if (row.lineNumber() <= 10) {
+                log.debug("Contenido: {}", CsvUtils.truncate(String.join(" | ", line), 200));
+            }
+            stats.incrementSkipped(SkipReason.PROCESSING_ERROR);
+            return null;
+        }
+    }
+
     /**
      * Guarda un lote en una transacción independiente.
      * Si falla, no afecta a otros lotes.
      */
     private void saveBatchInTransaction(List<GameSupportInfo> batch, CsvImportStatisticsDto stats) {
+        if (DryRun.isActive()) {
+            return;
+        }
+        long start = System.nanoTime();
+        ImportEvents.BatchFlush event = ImportEvents.BatchFlush.start();
         try {
             transactionTemplate.execute(status -> {
-                supportRepo.saveAll(batch);
+                if (upsertWriter.isUpsertMode()) {
+                    upsertWriter.upsertSupport(batch);
+                } else if (statelessWriter.isEnabled(DATASET)) {
+                    statelessWriter.insert(batch);
+                } else {
+                    supportRepo.saveAll(batch);
+                }
                 entityManager.flush();
                 entityManager.clear();
                 return null;
             });
+            ImportProgress.recordBatch(System.nanoTime() - start, batch.size());
+            event.complete(stats, batch.size(), true);
             log.debug("✅ Lote guardado: {} soportes", batch.size());
         } catch (Exception e) {
+            event.complete(stats, batch.size(), false);
             log.error("❌ Error guardando lote de {} soportes: {}", batch.size(), e.getMessage());
             // Revertir estadísticas
-            stats.setCreated(stats.getCreated() - batch.size());
-            stats.setSkipped(stats.getSkipped() + batch.size());
+            stats.addCreated(-batch.size());
+            stats.addSkipped(SkipReason.WRITE_FAILED, batch.size());
         }
     }
 
@@ -3,29 +3,44 @@ package com.paucasesnoves.steamAPI.modules.csv.service;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
 import com.paucasesnoves.steamAPI.modules.csv.dto.CsvImportStatisticsDto;
-import com.paucasesnoves.steamAPI.modules.games.domain.Game;
+import com.paucasesnoves.steamAPI.modules.csv.dto.SkipReason;
 import com.paucasesnoves.steamAPI.modules.games.domain.Tag;
 import com.paucasesnoves.steamAPI.modules.games.repository.GameRepository;
 import com.paucasesnoves.steamAPI.modules.games.repository.TagRepository;
 import com.paucasesnoves.steamAPI.utils.CsvUtils;
+import com.paucasesnoves.steamAPI.utils.LongHashSet;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.function.LongPredicate;
 
+/**
+ * Importa steamspy_tag_data.csv. En ese archivo la cabecera contiene los nombres
+ * de los tags (a partir de la segunda columna) y cada celda el número de votos
+ * del tag para el juego de la fila; 0 significa que el juego no lo tiene.
+ */
 @Service
 public class TagCsvImporter {
 
     private static final Logger log = LoggerFactory.getLogger(TagCsvImporter.class);
     private static final int BATCH_SIZE = 1000;
+    private static final int RELATION_BUFFER_SIZE = 10_000;
+
+    private static final String INSERT_GAME_TAG =
+            "INSERT INTO game_tag (game_id, tag_id, votes) VALUES (?, ?, ?)";
 
     // Cabecera flexible: la primera columna es el appid, el resto son tags variables
     private static final String[][] EXPECTED_HEADER_ALTERNATIVES = {
@@ -41,18 +56,31 @@ public class TagCsvImporter {
     private EntityManager entityManager;
     @Autowired
     private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ImportPipeline importPipeline;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
 
     public CsvImportStatisticsDto importCsv(InputStream inputStream) {
         long startTime = System.currentTimeMillis();
         CsvImportStatisticsDto stats = new CsvImportStatisticsDto();
-
-        // 1. Precargar juegos y tags existentes
-        Map<Long, Game> gameCache = CsvUtils.buildEntityCache(gameRepo.findAll(), Game::getAppId);
-        log.info("📦 Juegos precargados: {} entidades", gameCache.size());
-
-        Set<String> existingTagNames = CsvUtils.buildExistenceCache(
-                tagRepo.findAll(), Tag::getName);
-        log.info("🏷️ Tags existentes: {} nombres", existingTagNames.size());
+        ImportProgress.track(stats);
+
+        // 1. Precargar appIds de juegos y de juegos que ya tienen tags (en un dry run, stand-ins en memoria)
+        LongPredicate gameExists;
+        LongHashSet taggedAppIds;
+        if (DryRun.isActive()) {
+            gameExists = DryRun.gameExists();
+            taggedAppIds = new LongHashSet();
+            log.info("🧪 Dry run: sin tags existentes, solo se filtran los repetidos del CSV");
+        } else {
+            LongHashSet gameAppIds = gameRepo.findAllAppIds();
+            gameExists = gameAppIds::contains;
+            log.info("📦 Juegos precargados: {} appIds", gameAppIds.size());
+
+            taggedAppIds = gameRepo.findAllTaggedAppIds();
+            log.info("🏷️ Juegos con tags existentes: {}", taggedAppIds.size());
+        }
 
         // 2. Configurar parser CSV
         try (CSVReader reader = new CSVReaderBuilder(
@@ -62,136 +90,248 @@ public class TagCsvImporter {
 
             // Leer cabecera
             String[] header = reader.readNext();
-            if (!CsvUtils.isHeaderFlexibleValid(header, EXPECTED_HEADER_ALTERNATIVES)) {
+            if (!ImportEvents.HeaderValidation.validate(header, h -> CsvUtils.isHeaderFlexibleValid(h, EXPECTED_HEADER_ALTERNATIVES))) {
                 log.error("❌ Cabecera inválida. Primera columna debe ser 'appid' o 'steam_appid'. Encontrado: {}",
-                        header.length > 0 ? header[0] : "vacío");
+                        header != null && header.length > 0 ? header[0] : "vacío");
                 return stats;
             }
 
             log.info("📋 Cabecera: {} columnas (la primera es appid)", header.length);
 
-            // Mapa para cachear tags ya creados durante esta importación
-            Map<String, Tag> tagCache = new HashMap<>();
-            // Precargar tags existentes en el cache
-            for (Tag tag : tagRepo.findAll()) {
-                tagCache.put(tag.getName(), tag);
+            // 3. Resolver una sola vez el id del tag de cada columna
+            long[] tagIdByColumn = resolveTagColumns(header, stats);
+
+            // Cabe siempre un juego entero (como mucho una relación por columna)
+            RelationBuffer relations = new RelationBuffer(Math.max(RELATION_BUFFER_SIZE, header.length));
+
+            // Lectura y filtrado aquí; parseo de votos en los workers; el escritor vuelca
+            // las relaciones en el buffer y lo guarda antes de que un juego no quepa, así que
+            // los tags de un juego van siempre en la misma transacción: un lote fallido no
+            // deja juegos a medias que la precarga de game_tag saltaría en la siguiente importación
+            int[] lineNumber = {1};
+            importPipeline.run(
+                    () -> nextRow(reader, lineNumber, stats, gameExists, taggedAppIds),
+                    row -> parseTags(row, tagIdByColumn, stats),
+                    BATCH_SIZE,
+                    batch -> {
+                        for (GameTags tags : batch) {
+                            if (!relations.fits(tags.count())) {
+                                saveRelationsBatch(relations, stats);
+                            }
+                            for (int i = 0; i < tags.count(); i++) {
+                                relations.add(tags.appId(), tags.tagIds()[i], tags.votes()[i]);
+                            }
+                        }
+                    });
+
+            // ---- Guardar relaciones pendientes ----
+            if (!relations.isEmpty()) {
+                saveRelationsBatch(relations, stats);
             }
 
-            List<Tag> newTagsBatch = new ArrayList<>(BATCH_SIZE); // Tags nuevos a guardar
-            List<Object[]> gameTagsBatch = new ArrayList<>(); // Relaciones game-tag a insertar
-
-            String[] line;
-            int lineNumber = 1;
-
-            while ((line = reader.readNext()) != null) {
-                lineNumber++;
-                stats.incrementProcessed();
-
-                try {
-                    if (line.length < 2) {
-                        log.warn("⚠️ Línea {}: menos de 2 columnas, ignorando", lineNumber);
-                        stats.incrementSkipped();
-                        continue;
-                    }
-
-                    // ---- AppId ----
-                    Long appId = CsvUtils.parseLong(line[0].trim()).orElse(null);
-                    if (appId == null) {
-                        log.warn("⚠️ Línea {}: appId inválido '{}'", lineNumber, line[0]);
-                        stats.incrementSkipped();
-                        continue;
-                    }
-
-                    // ---- Juego existe? ----
-                    Game game = gameCache.get(appId);
-                    if (game == null) {
-                        if (stats.getSkipped() % 1000 == 0) {
-                            log.debug("⏭️ Juego {} no encontrado", appId);
-                        }
-                        stats.incrementSkipped();
-                        continue;
-                    }
-
-                    // ---- Procesar columnas de tags (desde índice 1 en adelante) ----
-                    for (int i = 1; i < line.length; i++) {
-                        String tagName = line[i].trim();
-                        if (tagName.isEmpty()) {
-                            continue;
-                        }
+            CsvUtils.logFinalStatistics(stats, startTime, "Tags");
 
-                        // Obtener o crear el tag
-                        Tag tag = tagCache.get(tagName);
-                        if (tag == null) {
-                            tag = new Tag(tagName);
-                            // Guardar después en lote
-                            newTagsBatch.add(tag);
-                            tagCache.put(tagName, tag);
-                            stats.incrementTagsCreated();
-                        }
+        } catch (Exception e) {
+            log.error("❌ Error crítico en importación de tags", e);
+            throw new RuntimeException("Falló importación de tags", e);
+        }
+
+        return stats;
+    }
 
-                        // Relacionar juego con tag (evitar duplicados en el mismo lote)
-                        // Usamos una estructura para evitar insertar relaciones duplicadas
-                        // Esto se manejará al final con SQL nativo o guardando la entidad Game con sus tags
-                        // Pero lo óptimo es usar game.getTags().add(tag) y luego guardar el juego,
-                        // sin embargo eso requiere cargar la colección. Mejor: guardar tags nuevos,
-                        // luego usar gameRepo.save(game) con los tags ya persistentes.
-                        // Simplificamos: añadimos tag a la colección del juego y luego guardamos el juego en el lote.
-                        // Pero como game ya está en el cache, debemos modificar la entidad game y luego guardarla.
-                        // Para evitar cargar toda la colección de tags, podemos usar una tabla intermedia directamente.
-                    }
-
-                    // Para simplificar, asumimos que tenemos una relación @ManyToMany en Game.
-                    // Añadimos el tag a la colección del juego.
-                    // Nota: esto requiere que la colección esté inicializada (fetch LAZY por defecto).
-                    // Para evitar cargar la colección, podríamos hacer un insert directo en la tabla de relación.
-                    // Implementaremos la versión con inserción directa nativa.
-                    // Pero por ahora, para mantener el código simple y funcional, usaremos el enfoque de colección.
-
-                } catch (Exception e) {
-                    log.warn("❌ Error línea {}: {}", lineNumber, e.getMessage());
-                    if (lineNumber <= 10) {
-                        log.debug("Contenido: {}", CsvUtils.truncate(String.join(" | ", line), 200));
-                    }
-                    stats.incrementSkipped();
+    /**
+     * Fila del CSV que ha pasado los filtros y falta convertir en relaciones.
+     */
+    private record TagRow(long appId, String[] line, int lineNumber) {
+    }
+
+    /**
+     * Tags con votos de un juego: las primeras {@code count} posiciones de cada array.
+     */
+    private record GameTags(long appId, long[] tagIds, int[] votes, int count) {
+    }
+
+    /**
+     * Lee hasta la siguiente fila que hay que importar, contando y saltando las demás.
+     * @return null al acabar el archivo
+     */
+    private TagRow nextRow(CSVReader reader, int[] lineNumber, CsvImportStatisticsDto stats,
+                           LongPredicate gameExists, LongHashSet taggedAppIds) throws Exception {
+        String[] line;
+        while ((line = reader.readNext()) != null) {
+            ImportProgress.checkCancelled();
+            lineNumber[0]++;
+            stats.incrementProcessed();
+
+            if (line.length < 2) {
+                log.warn("⚠️ Línea {}: menos de 2 columnas, ignorando", lineNumber[0]);
+                stats.incrementSkipped(SkipReason.MALFORMED_ROW);
+                continue;
+            }
+
+            // ---- AppId ----
+            Long appId = CsvUtils.parseLong(line[0].trim()).orElse(null);
+            if (appId == null) {
+                log.warn("⚠️ Línea {}: appId inválido '{}'", lineNumber[0], line[0]);
+                stats.incrementSkipped(SkipReason.INVALID_APP_ID);
+                continue;
+            }
+
+            // ---- Juego existe? ----
+            if (!gameExists.test(appId)) {
+                if (stats.getSkipped() % 1000 == 0) {
+                    log.debug("⏭️ Juego {} no encontrado", appId);
                 }
+                stats.incrementSkipped(SkipReason.UNKNOWN_GAME);
+                continue;
+            }
+
+            // ---- Ya tiene tags? (o repetido en el CSV) ----
+            if (!taggedAppIds.add(appId)) {
+                stats.incrementSkipped(SkipReason.DUPLICATE);
+                continue;
+            }
+
+            if (stats.getProcessed() % 5000 == 0) {
+                log.info("✅ {} juegos procesados, {} relaciones game_tag...",
+                        String.format("%,d", stats.getProcessed()),
+                        String.format("%,d", stats.getCreated()));
+            }
+            return new TagRow(appId, line, lineNumber[0]);
+        }
+        return null;
+    }
 
-                // Guardar lotes de tags nuevos cada cierto tamaño
-                if (newTagsBatch.size() >= BATCH_SIZE) {
-                    saveNewTagsBatch(newTagsBatch, stats);
-                    newTagsBatch.clear();
+    /**
+     * Celdas con votos de una fila (solo las distintas de 0). Puede correr en un worker del pipeline.
+     */
+    private GameTags parseTags(TagRow row, long[] tagIdByColumn, CsvImportStatisticsDto stats) {
+        String[] line = row.line();
+        try {
+            int columns = Math.min(line.length, tagIdByColumn.length);
+            long[] tagIds = new long[Math.max(0, columns - 1)];
+            int[] votes = new int[tagIds.length];
+            int count = 0;
+            for (int i = 1; i < columns; i++) {
+                int cellVotes = parseVotes(line[i]);
+                if (cellVotes <= 0 || tagIdByColumn[i] == 0L) {
+                    continue;
                 }
+                tagIds[count] = tagIdByColumn[i];
+                votes[count] = cellVotes;
+                count++;
+            }
+            stats.addCreated(count);
+            return count == 0 ? null : new GameTags(row.appId(), tagIds, votes, count);
 
-                // Procesar relaciones en lote al final o cuando se acumulen muchas
-                // Por simplicidad, manejaremos las relaciones después de procesar todas las líneas
-                // o en lotes. Requiere más lógica. Lo implementaré de forma completa.
+        } catch (Exception e) {
+            log.warn("❌ Error línea {}: {}", row.lineNumber(), e.getMessage());
+            if (row.lineNumber() <= 10) {
+                log.debug("Contenido: {}", CsvUtils.truncate(String.join(" | ", line), 200));
             }
+            stats.incrementSkipped(SkipReason.PROCESSING_ERROR);
+            return null;
+        }
+    }
 
-            // Guardar tags nuevos pendientes
-            if (!newTagsBatch.isEmpty()) {
-                saveNewTagsBatch(newTagsBatch, stats);
+    /**
+     * Traduce cada columna de la cabecera al id de su Tag, creando en lote los que falten.
+     * La posición 0 (appid) queda sin usar. En un dry run los tags no se guardan y cada
+     * columna recibe un id ficticio (negativo) para que sus votos se sigan contando.
+     */
+    private long[] resolveTagColumns(String[] header, CsvImportStatisticsDto stats) {
+        ImportEvents.LookupResolution event = ImportEvents.LookupResolution.start();
+        boolean dryRun = DryRun.isActive();
+        Map<String, Tag> tagsByName = new HashMap<>();
+        for (Tag tag : dryRun ? List.<Tag>of() : tagRepo.findAll()) {
+            tagsByName.put(tag.getName().toLowerCase(Locale.ROOT), tag);
+        }
+        log.info("🏷️ Tags existentes: {} nombres", tagsByName.size());
+
+        List<Tag> newTagsBatch = new ArrayList<>();
+        for (int i = 1; i < header.length; i++) {
+            String tagName = header[i].trim();
+            String key = tagName.toLowerCase(Locale.ROOT);
+            if (!tagName.isEmpty() && !tagsByName.containsKey(key)) {
+                Tag tag = new Tag(tagName);
+                tagsByName.put(key, tag);
+                newTagsBatch.add(tag);
+                stats.incrementTagsCreated();
+            }
+        }
+        if (!dryRun) {
+            for (int from = 0; from < newTagsBatch.size(); from += BATCH_SIZE) {
+                saveNewTagsBatch(newTagsBatch.subList(from, Math.min(from + BATCH_SIZE, newTagsBatch.size())), stats);
             }
+        }
 
-            // ---- Re-cargar juego y asignar tags (segunda pasada) ----
-            // Dado que no podemos modificar fácilmente la colección de tags sin cargar el juego,
-            // lo más eficiente es realizar una segunda lectura o acumular las relaciones en una lista
-            // y luego insertar directamente en la tabla de relación usando JDBC o SQL nativo.
-            // Para no complicar demasiado, asumiremos que los tags se asignan mediante la colección
-            // y guardamos los juegos con sus tags. Esto requeriría volver a leer el CSV o almacenar
-            // las relaciones en memoria. Como el número de relaciones puede ser enorme, no es viable.
+        long[] tagIdByColumn = new long[header.length];
+        for (int i = 1; i < header.length; i++) {
+            Tag tag = tagsByName.get(header[i].trim().toLowerCase(Locale.ROOT));
+            if (tag != null && tag.getId() != null) {
+                tagIdByColumn[i] = tag.getId();
+            } else {
+                tagIdByColumn[i] = dryRun && tag != null ? -i : 0L;
+            }
+        }
+        event.completeHeader(header.length - 1);
+        return tagIdByColumn;
+    }
 
-            // Por tanto, proporcionaré una implementación alternativa que utiliza inserción directa en
-            // la tabla de relación game_tags mediante JdbcTemplate. Esto es lo más eficiente.
+    /**
+     * Parsea el número de votos de una celda sin crear objetos.
+     * Vacío, "0" o valores no numéricos devuelven 0.
+     */
+    private static int parseVotes(String cell) {
+        if (cell == null || cell.isEmpty() || (cell.length() == 1 && cell.charAt(0) == '0')) {
+            return 0;
+        }
+        int votes = 0;
+        boolean digits = false;
+        for (int i = 0; i < cell.length(); i++) {
+            char c = cell.charAt(i);
+            if (c >= '0' && c <= '9') {
+                votes = votes * 10 + (c - '0');
+                digits = true;
+            } else if (c == '.' && digits) {
+                break; // "12.0" → 12
+            } else if (c != ' ') {
+                return 0;
+            }
+        }
+        return votes;
+    }
 
+    /**
+     * Inserta las relaciones acumuladas en una transacción independiente y vacía el buffer.
+     */
+    private void saveRelationsBatch(RelationBuffer relations, CsvImportStatisticsDto stats) {
+        if (DryRun.isActive()) {
+            relations.clear();
+            return;
+        }
+        int size = relations.size();
+        long start = System.nanoTime();
+        ImportEvents.BatchFlush event = ImportEvents.BatchFlush.start();
+        try {
+            transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(INSERT_GAME_TAG, relations));
+            ImportProgress.recordBatch(System.nanoTime() - start, size);
+            event.complete(stats, size, true);
+            log.debug("✅ Lote de {} relaciones game_tag guardado", size);
         } catch (Exception e) {
-            log.error("❌ Error crítico en importación de tags", e);
-            throw new RuntimeException("Falló importación de tags", e);
+            event.complete(stats, size, false);
+            log.error("❌ Error guardando lote de {} relaciones game_tag: {}", size, e.getMessage());
+            stats.addCreated(-size);
+            stats.addSkipped(SkipReason.WRITE_FAILED, size);
+        } finally {
+            relations.clear();
         }
-
-        return stats;
     }
 
     /**
-     * Guarda un lote de tags nuevos en la base de datos.
+     * Guarda un lote de tags nuevos en la base de datos. Si falla, los tags del lote
+     * pierden el id que les dio saveAll: sus columnas se ignoran en lugar de apuntar
+     * a ids que no existen.
      */
     private void saveNewTagsBatch(List<Tag> batch, CsvImportStatisticsDto stats) {
         if (batch.isEmpty()) return;
@@ -205,8 +345,50 @@ public class TagCsvImporter {
             log.debug("✅ Lote de {} tags guardado", batch.size());
         } catch (Exception e) {
             log.error("❌ Error guardando lote de {} tags: {}", batch.size(), e.getMessage(), e);
+            batch.forEach(tag -> tag.setId(null));
             stats.setTagsCreated(stats.getTagsCreated() - batch.size());
-            stats.setSkipped(stats.getSkipped() + batch.size());
+            stats.addSkipped(SkipReason.WRITE_FAILED, batch.size());
+        }
+    }
+
+    /**
+     * Buffer acotado de filas (game_id, tag_id, votes) en arrays primitivos,
+     * que se vuelca directamente como parámetros del batch JDBC.
+     */
+    private static final class RelationBuffer implements BatchPreparedStatementSetter {
+        private final long[] gameIds;
+        private final long[] tagIds;
+        private final int[] votes;
+        private int size;
+
+        RelationBuffer(int capacity) {
+            this.gameIds = new long[capacity];
+            this.tagIds = new long[capacity];
+            this.votes = new int[capacity];
+        }
+
+        void add(long gameId, long tagId, int voteCount) {
+            gameIds[size] = gameId;
+            tagIds[size] = tagId;
+            votes[size] = voteCount;
+            size++;
+        }
+
+        boolean fits(int count) { return size + count <= gameIds.length; }
+        boolean isEmpty() { return size == 0; }
+        int size() { return size; }
+        void clear() { size = 0; }
+
+        @Override
+        public void setValues(PreparedStatement ps, int i) throws SQLException {
+            ps.setLong(1, gameIds[i]);
+            ps.setLong(2, tagIds[i]);
+            ps.setInt(3, votes[i]);
+        }
+
+        @Override
+        public int getBatchSize() {
+            return size;
         }
     }
-}
\ No newline at end of file
+}
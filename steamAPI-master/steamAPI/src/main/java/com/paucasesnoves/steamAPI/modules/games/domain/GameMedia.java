@@ -8,12 +8,13 @@ import java.util.List;
 @Table(name = "game_media")
 public class GameMedia {
 
+    // Clave compartida con el juego (game_id = appId): sin IDENTITY, los INSERT van en batch JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @MapsId
     @OneToOne
-    @JoinColumn(name = "game_id", nullable = false)
+    @JoinColumn(name = "game_id")
     private Game game;
 
     private String headerImage;
@@ -21,14 +22,13 @@ public class GameMedia {
     @Lob
     private String background;
 
-    @ElementCollection
-    @CollectionTable(name = "game_screenshots", joinColumns = @JoinColumn(name = "game_media_id"))
-    @Column(name = "screenshot")
+    // Una columna por lista (ver StringListConverter): para cambiarlas, asignar una lista nueva
+    @Lob
+    @Convert(converter = StringListConverter.class)
     private List<String> screenshots = new ArrayList<>();
 
-    @ElementCollection
-    @CollectionTable(name = "game_movies", joinColumns = @JoinColumn(name = "game_media_id"))
-    @Column(name = "movie")
+    @Lob
+    @Convert(converter = StringListConverter.class)
     private List<String> movies = new ArrayList<>();
 
     public Long getId() {
@@ -7,11 +7,11 @@ import jakarta.persistence.*;
 public class GameSupportInfo {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @MapsId
     @OneToOne
-    @JoinColumn(name = "game_id", nullable = false, unique = true) // 🔥 Aseguramos 1:1 real
+    @JoinColumn(name = "game_id")
     private Game game;
 
     @Column(length = 1024)  // URLs largas de Steam (hasta 1024 caracteres)
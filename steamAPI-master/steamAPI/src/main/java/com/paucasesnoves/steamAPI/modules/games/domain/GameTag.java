@@ -0,0 +1,73 @@
+package com.paucasesnoves.steamAPI.modules.games.domain;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Fila de la tabla de relación game_tag con los votos de SteamSpy.
+ * Es la misma tabla que usa Game.tags; esta entidad solo añade la columna votes.
+ */
+@Entity
+@Table(name = "game_tag")
+@IdClass(GameTag.Key.class)
+public class GameTag {
+
+    @Id
+    @Column(name = "game_id")
+    private Long gameId;
+
+    @Id
+    @Column(name = "tag_id")
+    private Long tagId;
+
+    @Column(name = "votes")
+    private Integer votes;
+
+    public GameTag() {}
+
+    public GameTag(Long gameId, Long tagId, Integer votes) {
+        this.gameId = gameId;
+        this.tagId = tagId;
+        this.votes = votes;
+    }
+
+    public Long getGameId() { return gameId; }
+    public void setGameId(Long gameId) { this.gameId = gameId; }
+
+    public Long getTagId() { return tagId; }
+    public void setTagId(Long tagId) { this.tagId = tagId; }
+
+    public Integer getVotes() { return votes; }
+    public void setVotes(Integer votes) { this.votes = votes; }
+
+    /**
+     * Clave compuesta (game_id, tag_id).
+     */
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Long gameId;
+        private Long tagId;
+
+        public Key() {}
+
+        public Key(Long gameId, Long tagId) {
+            this.gameId = gameId;
+            this.tagId = tagId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(gameId, key.gameId) && Objects.equals(tagId, key.tagId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(gameId, tagId);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.paucasesnoves.steamAPI.modules.games.domain;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.hibernate.annotations.Immutable;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Guarda una lista de cadenas (URLs de screenshots o vídeos) en una sola columna de texto:
+ * un elemento por línea, con '\' y saltos de línea escapados como "\\" y "\n". Una lista
+ * vacía se guarda como NULL.
+ * <p>
+ * Al leer no se decodifica nada: la entidad recibe una lista que guarda el texto tal cual y
+ * lo parte la primera vez que se consulta, así que cargar un GameMedia sin mirar sus listas
+ * no cuesta nada. Si esa lista se vuelve a guardar sin tocarla, se escribe el mismo texto.
+ * <p>
+ * Las listas leídas no se pueden modificar y Hibernate las trata como inmutables: para
+ * cambiarlas hay que asignar una lista nueva con el setter de la entidad.
+ */
+@Converter
+@Immutable
+public class StringListConverter implements AttributeConverter<List<String>, String> {
+
+    private static final char SEPARATOR = '\n';
+    private static final char ESCAPE = '\\';
+
+    @Override
+    public String convertToDatabaseColumn(List<String> values) {
+        return encode(values);
+    }
+
+    @Override
+    public List<String> convertToEntityAttribute(String encoded) {
+        return encoded == null ? List.of() : new EncodedList(encoded);
+    }
+
+    /**
+     * Texto de la columna para una lista (también para escribirla por JDBC).
+     */
+    public static String encode(List<String> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        if (values instanceof EncodedList encodedList) {
+            return encodedList.encoded;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                sb.append(SEPARATOR);
+            }
+            String value = values.get(i);
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                if (c == ESCAPE) {
+                    sb.append(ESCAPE).append(ESCAPE);
+                } else if (c == SEPARATOR) {
+                    sb.append(ESCAPE).append('n');
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    static List<String> decode(String encoded) {
+        List<String> values = new ArrayList<>();
+        int start = 0;
+        boolean escaped = false;
+        for (int i = 0; i <= encoded.length(); i++) {
+            char c = i < encoded.length() ? encoded.charAt(i) : SEPARATOR;
+            if (c == ESCAPE) {
+                escaped = true;
+                i++;
+            } else if (c == SEPARATOR) {
+                values.add(escaped ? unescape(encoded, start, i) : encoded.substring(start, i));
+                start = i + 1;
+                escaped = false;
+            }
+        }
+        return values;
+    }
+
+    private static String unescape(String encoded, int start, int end) {
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = encoded.charAt(i);
+            if (c == ESCAPE && i + 1 < end) {
+                char next = encoded.charAt(++i);
+                sb.append(next == 'n' ? SEPARATOR : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Lista de solo lectura sobre el texto de la columna; se decodifica en el primer acceso.
+     */
+    private static final class EncodedList extends AbstractList<String> implements RandomAccess {
+
+        private final String encoded;
+        private List<String> values;
+
+        EncodedList(String encoded) {
+            this.encoded = encoded;
+        }
+
+        private List<String> values() {
+            if (values == null) {
+                values = decode(encoded);
+            }
+            return values;
+        }
+
+        @Override
+        public String get(int index) {
+            return values().get(index);
+        }
+
+        @Override
+        public int size() {
+            return values().size();
+        }
+    }
+}
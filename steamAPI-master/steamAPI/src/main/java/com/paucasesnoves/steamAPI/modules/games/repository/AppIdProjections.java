@@ -0,0 +1,26 @@
+package com.paucasesnoves.steamAPI.modules.games.repository;
+
+import com.paucasesnoves.steamAPI.utils.LongHashSet;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * Proyecciones de solo ids para los fragmentos *RepositoryCustomImpl. Una consulta JPQL
+ * devolvería una List&lt;Long&gt; con un objeto por fila; aquí la columna se lee fila a fila
+ * directamente a un LongHashSet.
+ */
+final class AppIdProjections {
+
+    private AppIdProjections() {
+    }
+
+    /**
+     * Carga la primera columna (BIGINT) de una consulta en un LongHashSet,
+     * leyendo fila a fila sin construir entidades ni objetos Long.
+     */
+    static LongHashSet loadLongSet(JdbcTemplate jdbcTemplate, String sql) {
+        LongHashSet values = new LongHashSet(1 << 16);
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> values.add(rs.getLong(1)));
+        return values;
+    }
+}
@@ -6,6 +6,6 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface GameDescriptionRepository extends JpaRepository<GameDescription, Long> {
+public interface GameDescriptionRepository extends JpaRepository<GameDescription, Long>, GameDescriptionRepositoryCustom {
     boolean existsByGame(Game game);
 }
\ No newline at end of file
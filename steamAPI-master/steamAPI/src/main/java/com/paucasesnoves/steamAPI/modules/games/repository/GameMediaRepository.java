@@ -6,6 +6,6 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface GameMediaRepository extends JpaRepository<GameMedia, Long> {
+public interface GameMediaRepository extends JpaRepository<GameMedia, Long>, GameMediaRepositoryCustom {
     boolean existsByGame(Game game);
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.paucasesnoves.steamAPI.modules.games.repository;
+
+import com.paucasesnoves.steamAPI.utils.LongHashSet;
+
+public interface GameMediaRepositoryCustom {
+
+    // appIds de los juegos que ya tienen media, leyendo solo la clave compartida
+    LongHashSet findAllGameAppIds();
+}
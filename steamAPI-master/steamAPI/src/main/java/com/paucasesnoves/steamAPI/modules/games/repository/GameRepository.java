@@ -7,7 +7,7 @@ import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
 @Repository
-public interface GameRepository extends JpaRepository<Game, Long> {
+public interface GameRepository extends JpaRepository<Game, Long>, GameRepositoryCustom {
 
     // Ya no necesitamos findByAppId() porque appId ES el @Id
     // JpaRepository.findById(Long id) ya funciona con appId
@@ -0,0 +1,12 @@
+package com.paucasesnoves.steamAPI.modules.games.repository;
+
+import com.paucasesnoves.steamAPI.utils.LongHashSet;
+
+public interface GameRepositoryCustom {
+
+    // appIds de todos los juegos, leyendo solo la clave primaria
+    LongHashSet findAllAppIds();
+
+    // appIds de los juegos que ya tienen alguna etiqueta
+    LongHashSet findAllTaggedAppIds();
+}
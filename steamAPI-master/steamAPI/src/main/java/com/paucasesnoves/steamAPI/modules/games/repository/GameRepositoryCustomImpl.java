@@ -0,0 +1,21 @@
+package com.paucasesnoves.steamAPI.modules.games.repository;
+
+import com.paucasesnoves.steamAPI.utils.LongHashSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class GameRepositoryCustomImpl implements GameRepositoryCustom {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public LongHashSet findAllAppIds() {
+        return AppIdProjections.loadLongSet(jdbcTemplate, "SELECT app_id FROM games");
+    }
+
+    @Override
+    public LongHashSet findAllTaggedAppIds() {
+        return AppIdProjections.loadLongSet(jdbcTemplate, "SELECT DISTINCT game_id FROM game_tag");
+    }
+}
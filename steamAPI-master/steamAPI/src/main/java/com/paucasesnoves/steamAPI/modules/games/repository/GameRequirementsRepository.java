@@ -6,6 +6,6 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface GameRequirementsRepository extends JpaRepository<GameRequirements, Long> {
+public interface GameRequirementsRepository extends JpaRepository<GameRequirements, Long>, GameRequirementsRepositoryCustom {
     boolean existsByGame(Game game);
 }
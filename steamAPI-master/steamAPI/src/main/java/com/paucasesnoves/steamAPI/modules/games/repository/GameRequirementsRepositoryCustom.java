@@ -0,0 +1,9 @@
+package com.paucasesnoves.steamAPI.modules.games.repository;
+
+import com.paucasesnoves.steamAPI.utils.LongHashSet;
+
+public interface GameRequirementsRepositoryCustom {
+
+    // appIds de los juegos que ya tienen requisitos, leyendo solo la clave compartida
+    LongHashSet findAllGameAppIds();
+}
@@ -6,6 +6,6 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface GameSupportInfoRepository extends JpaRepository<GameSupportInfo, Long> {
+public interface GameSupportInfoRepository extends JpaRepository<GameSupportInfo, Long>, GameSupportInfoRepositoryCustom {
     boolean existsByGame(Game game);
 }
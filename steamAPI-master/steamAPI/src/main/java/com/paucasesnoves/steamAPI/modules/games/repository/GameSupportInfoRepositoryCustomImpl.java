@@ -0,0 +1,16 @@
+package com.paucasesnoves.steamAPI.modules.games.repository;
+
+import com.paucasesnoves.steamAPI.utils.LongHashSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class GameSupportInfoRepositoryCustomImpl implements GameSupportInfoRepositoryCustom {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public LongHashSet findAllGameAppIds() {
+        return AppIdProjections.loadLongSet(jdbcTemplate, "SELECT game_id FROM game_support_info");
+    }
+}
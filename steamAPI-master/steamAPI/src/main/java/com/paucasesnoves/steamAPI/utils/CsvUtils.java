@@ -1,25 +1,35 @@
 package com.paucasesnoves.steamAPI.utils;
 
+import com.github.luben.zstd.ZstdInputStream;
 import com.opencsv.CSVParser;
 import com.opencsv.CSVParserBuilder;
+import com.opencsv.bean.CsvToBean;
+import com.opencsv.bean.CsvToBeanBuilder;
+import com.opencsv.bean.HeaderColumnNameMappingStrategy;
 import com.paucasesnoves.steamAPI.modules.csv.dto.CsvImportStatisticsDto;
-import jakarta.persistence.EntityManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.tukaani.xz.XZInputStream;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Utilidades centralizadas para importación de archivos CSV en el ecosistema Steam.
- * Incluye parseo, validación, cacheo de entidades, manejo de lotes y estadísticas.
+ * Incluye parseo, validación, cacheo de entidades y estadísticas; el acceso a la base de
+ * datos (lotes, upserts, precargas) está en ImportPersistence.
  */
 public final class CsvUtils {
 
@@ -49,6 +59,23 @@ public final class CsvUtils {
                 .build();
     }
 
+    /**
+     * Crea un lector de beans mapeados por nombre de columna.
+     * El CsvToBean devuelto es Iterable: recorrerlo con for-each parsea los
+     * registros de uno en uno, sin materializar el archivo completo como hace parse().
+     */
+    public static <T> CsvToBean<T> createBeanReader(Reader reader, Class<T> type) {
+        HeaderColumnNameMappingStrategy<T> strategy = new HeaderColumnNameMappingStrategy<>();
+        strategy.setType(type);
+
+        return new CsvToBeanBuilder<T>(reader)
+                .withMappingStrategy(strategy)
+                .withIgnoreLeadingWhiteSpace(true)
+                .withIgnoreEmptyLine(true)
+                .withThrowExceptions(false)
+                .build();
+    }
+
     // =========================================================================
     // VALIDACIÓN DE CABECERAS
     // =========================================================================
@@ -192,50 +219,6 @@ public final class CsvUtils {
                 .collect(Collectors.toSet());
     }
 
-    // =========================================================================
-    // MANEJO DE LOTES Y LIMPIEZA DEL CONTEXTO DE PERSISTENCIA
-    // =========================================================================
-
-    /**
-     * Guarda un lote, hace flush/clear y actualiza estadísticas.
-     */
-    public static <T> void saveBatchAndClear(List<T> batch,
-                                             Function<List<T>, Iterable<T>> saveFunction,
-                                             CsvImportStatisticsDto stats,
-                                             EntityManager entityManager) {
-        if (batch.isEmpty()) return;
-        try {
-            saveFunction.apply(batch);
-            entityManager.flush();
-            entityManager.clear();
-            log.debug("✅ Lote guardado: {} entidades | Total acumulado: {}",
-                    batch.size(), stats.getCreated());
-        } catch (Exception e) {
-            log.error("❌ Error guardando lote de {} entidades: {}",
-                    batch.size(), e.getMessage(), e);
-            stats.setCreated(stats.getCreated() - batch.size());
-            stats.setSkipped(stats.getSkipped() + batch.size());
-        }
-    }
-
-    /**
-     * Versión sin EntityManager (cuando no se necesita flush/clear explícito).
-     */
-    public static <T> void saveBatch(List<T> batch,
-                                     Function<List<T>, Iterable<T>> saveFunction,
-                                     CsvImportStatisticsDto stats) {
-        if (batch.isEmpty()) return;
-        try {
-            saveFunction.apply(batch);
-            log.debug("✅ Lote guardado: {} entidades | Total: {}",
-                    batch.size(), stats.getCreated());
-        } catch (Exception e) {
-            log.error("❌ Error guardando lote: {}", e.getMessage(), e);
-            stats.setCreated(stats.getCreated() - batch.size());
-            stats.setSkipped(stats.getSkipped() + batch.size());
-        }
-    }
-
     // =========================================================================
     // ESTADÍSTICAS Y LOGGING
     // =========================================================================
@@ -252,6 +235,9 @@ public final class CsvUtils {
         log.info("Líneas procesadas:      {}", String.format("%,d", stats.getProcessed()));
         log.info("Entidades creadas:      {}", String.format("%,d", stats.getCreated()));
         log.info("Registros saltados:     {}", String.format("%,d", stats.getSkipped()));
+        if (stats.getSkipped() > 0) {
+            log.info("Saltados por motivo:    {}", stats.getSkippedByReason());
+        }
         log.info("Tiempo total:           {,.2f} segundos", seconds);  // ✅ CORREGIDO
         if (seconds > 0) {
             log.info("Velocidad:              {,.1f} ent/segundo", stats.getCreated() / seconds);
@@ -259,18 +245,129 @@ public final class CsvUtils {
         log.info("=".repeat(70));
     }
 
-    public static InputStream getResourceInputStream(String path) throws IOException {
+    // Codificaciones admitidas en el cuerpo de una subida (cabecera Content-Encoding)
+    public static final Set<String> SUPPORTED_CONTENT_ENCODINGS = Set.of("identity", "gzip", "x-gzip", "zstd");
+
+    private static final int DECOMPRESSION_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Envuelve el stream con el descompresor que indica la cabecera Content-Encoding.
+     * Se descomprime al vuelo: nada se guarda en memoria ni en disco.
+     */
+    public static InputStream decodeContent(InputStream in, String contentEncoding) throws IOException {
+        String encoding = contentEncoding == null ? "identity" : contentEncoding.trim().toLowerCase(Locale.ROOT);
+        return switch (encoding) {
+            case "", "identity" -> in;
+            case "gzip", "x-gzip" -> new GZIPInputStream(in, DECOMPRESSION_BUFFER_SIZE);
+            case "zstd" -> new BufferedInputStream(new ZstdInputStream(in), DECOMPRESSION_BUFFER_SIZE);
+            default -> throw new IOException("Content-Encoding no soportado: " + contentEncoding);
+        };
+    }
+
+    /**
+     * Formatos de compresión que se reconocen por sus bytes mágicos.
+     */
+    public enum Compression {
+        NONE, GZIP, ZSTD, XZ
+    }
+
+    private static final int MAGIC_LENGTH = 6;
+    private static final String[] COMPRESSED_SUFFIXES = {".gz", ".zst", ".xz"};
+
+    /**
+     * Detecta el formato por la cabecera del stream: gzip (1F 8B), zstd (28 B5 2F FD)
+     * o xz (FD 37 7A 58 5A 00).
+     */
+    public static Compression detectCompression(byte[] magic, int length) {
+        if (length >= 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b) {
+            return Compression.GZIP;
+        }
+        if (length >= 4 && (magic[0] & 0xff) == 0x28 && (magic[1] & 0xff) == 0xb5
+                && (magic[2] & 0xff) == 0x2f && (magic[3] & 0xff) == 0xfd) {
+            return Compression.ZSTD;
+        }
+        if (length >= 6 && (magic[0] & 0xff) == 0xfd && magic[1] == '7' && magic[2] == 'z'
+                && magic[3] == 'X' && magic[4] == 'Z' && magic[5] == 0) {
+            return Compression.XZ;
+        }
+        return Compression.NONE;
+    }
+
+    /**
+     * Descomprime al vuelo si el stream empieza por la cabecera de gzip, zstd o xz; si no,
+     * lo devuelve tal cual (con buffer). Un CSV nunca empieza por esos bytes, así que no
+     * hace falta fiarse de la extensión del archivo. Los buffers son de 64 KB para leer
+     * el comprimido en bloques grandes.
+     */
+    public static InputStream decompressIfNeeded(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, DECOMPRESSION_BUFFER_SIZE);
+        buffered.mark(MAGIC_LENGTH);
+        byte[] magic = buffered.readNBytes(MAGIC_LENGTH);
+        buffered.reset();
+
+        Compression compression = detectCompression(magic, magic.length);
+        if (compression != Compression.NONE) {
+            log.info("🗜️ Entrada comprimida ({}): se descomprime al vuelo", compression);
+        }
+        return switch (compression) {
+            case GZIP -> new GZIPInputStream(buffered, DECOMPRESSION_BUFFER_SIZE);
+            case ZSTD -> new BufferedInputStream(new ZstdInputStream(buffered), DECOMPRESSION_BUFFER_SIZE);
+            case XZ -> new XZInputStream(buffered);
+            case NONE -> buffered;
+        };
+    }
+
+    /**
+     * Recurso del classpath para la ruta dada o, si no existe, su versión comprimida
+     * (.gz, .zst o .xz).
+     */
+    public static Resource findResource(String path) throws IOException {
         PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
         Resource resource = resolver.getResource("classpath:" + path);
+        for (int i = 0; !resource.exists() && i < COMPRESSED_SUFFIXES.length; i++) {
+            resource = resolver.getResource("classpath:" + path + COMPRESSED_SUFFIXES[i]);
+        }
         if (!resource.exists()) {
             throw new IOException("Recurso no encontrado en classpath: " + path);
         }
-        return resource.getInputStream();
+        return resource;
+    }
+
+    /**
+     * Abre un recurso del classpath, descomprimiéndolo si está comprimido.
+     */
+    public static InputStream getResourceInputStream(String path) throws IOException {
+        return decompressIfNeeded(findResource(path).getInputStream());
+    }
+
+    /**
+     * Abre un recurso del classpath con {@link MappedCsvReader}. Solo es posible cuando
+     * el recurso es un archivo del sistema de ficheros (no dentro de un jar) sin comprimir;
+     * en otro caso devuelve vacío y el importador debe leerlo como stream.
+     */
+    public static Optional<MappedCsvReader> openMappedResource(String path) throws IOException {
+        Resource resource = findResource(path);
+        if (!resource.isFile()) {
+            return Optional.empty();
+        }
+        Path file = resource.getFile().toPath();
+        byte[] magic;
+        try (InputStream in = Files.newInputStream(file)) {
+            magic = in.readNBytes(MAGIC_LENGTH);
+        }
+        if (detectCompression(magic, magic.length) != Compression.NONE) {
+            return Optional.empty();
+        }
+        return Optional.of(MappedCsvReader.open(file));
     }
 
     public static boolean resourceExists(String path) {
-        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
-        return resolver.getResource("classpath:" + path).exists();
+        try {
+            findResource(path);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
     }
 
     // =========================================================================
@@ -0,0 +1,144 @@
+package com.paucasesnoves.steamAPI.utils;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Conjunto de valores long con direccionamiento abierto (sondeo lineal).
+ * Guarda los valores en un long[] plano, sin objetos Long ni nodos por entrada,
+ * así que consultar un appId es O(1) y no genera basura.
+ *
+ * No es thread-safe: cada importación usa su propia instancia.
+ */
+public final class LongHashSet {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final long FREE = 0L; // el 0 se guarda aparte en containsZero
+
+    private long[] table;
+    private int mask;
+    private int size;
+    private int resizeAt;
+    private boolean containsZero;
+
+    public LongHashSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongHashSet(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Añade un valor.
+     * @return true si no estaba presente, false si ya existía
+     */
+    public boolean add(long value) {
+        if (value == FREE) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int slot = mix(value) & mask;
+        long current;
+        while ((current = table[slot]) != FREE) {
+            if (current == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = value;
+        if (++size >= resizeAt) {
+            rehash(table.length << 1);
+        }
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value == FREE) {
+            return containsZero;
+        }
+        int slot = mix(value) & mask;
+        long current;
+        while ((current = table[slot]) != FREE) {
+            if (current == value) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Recorre todos los valores (en orden de tabla, no de inserción).
+     */
+    public void forEach(LongConsumer action) {
+        if (containsZero) {
+            action.accept(FREE);
+        }
+        for (long value : table) {
+            if (value != FREE) {
+                action.accept(value);
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(table, FREE);
+        containsZero = false;
+        size = 0;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] old = table;
+        allocate(newCapacity);
+        for (long value : old) {
+            if (value != FREE) {
+                int slot = mix(value) & mask;
+                while (table[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = value;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        table = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity >> 1; // factor de carga 0.5
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity >> 1 <= expectedSize && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Mezcla los bits del valor (finalizador de MurmurHash3): los appIds son
+     * consecutivos o múltiplos de 10 y sin mezclar se agruparían en la tabla.
+     */
+    private static int mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
@@ -0,0 +1,482 @@
+package com.paucasesnoves.steamAPI.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Lector CSV sobre un archivo mapeado en memoria (FileChannel.map).
+ * <p>
+ * Recorre los bytes directamente, sin pasar por Reader ni char[]: cada registro se
+ * guarda como rangos [inicio, fin) dentro del buffer y un campo solo se decodifica a
+ * String cuando se pide con {@link #getString(int)}. Así los campos que no se usan
+ * (descripciones HTML de juegos que se van a saltar, por ejemplo) no generan basura.
+ * <p>
+ * Sigue las mismas reglas que {@link CsvUtils#createDefaultParser()}: separador ',',
+ * comillas RFC-4180 ("" dentro de comillas es una comilla literal), escape con '\'
+ * (se descarta; la comilla o barra que le sigue es literal), saltos de línea dentro de comillas y espacios ignorados
+ * delante de una comilla de apertura. Se asume UTF-8.
+ * <p>
+ * No es thread-safe. Cada archivo admite como máximo 2 GB (límite de un MappedByteBuffer).
+ */
+public final class MappedCsvReader implements Closeable {
+
+    private static final byte SEPARATOR = ',';
+    private static final byte QUOTE = '"';
+    private static final byte ESCAPE = '\\';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    // Bytes del principio del archivo que entran en headHash()
+    private static final int HEAD_BLOCK = 64 << 10;
+
+    private final ByteBuffer buffer;
+    private final FileChannel channel;
+    private final int limit;
+    private final long baseOffset; // posición del buffer dentro del archivo
+    private final long lastModified;
+    private final long headHash;
+
+    private int position;
+    private int recordStart;
+    private int recordEnd;
+    private volatile long publishedPosition;
+
+    // Campos del registro actual: rangos en bruto (con comillas) y si necesitan des-escapado
+    private int fieldCount;
+    private int[] starts = new int[32];
+    private int[] ends = new int[32];
+    private boolean[] escaped = new boolean[32];
+
+    // Buffer reutilizable para copiar/des-escapar bytes antes de decodificar
+    private byte[] scratch = new byte[4096];
+
+    private MappedCsvReader(ByteBuffer buffer, FileChannel channel, long baseOffset, long lastModified) {
+        this.buffer = buffer;
+        this.channel = channel;
+        this.limit = buffer.limit();
+        this.baseOffset = baseOffset;
+        this.lastModified = lastModified;
+        this.headHash = channel == null ? 0 : hash(0, Math.min(limit, HEAD_BLOCK));
+        this.publishedPosition = baseOffset;
+    }
+
+    /**
+     * Mapea el archivo completo en modo solo lectura.
+     */
+    public static MappedCsvReader open(Path path) throws IOException {
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Archivo demasiado grande para mapearlo: " + path + " (" + size + " bytes)");
+            }
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new MappedCsvReader(mapped, channel, 0, lastModified);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Lector sobre un trozo ya mapeado (por ejemplo un rango de un archivo mayor).
+     * El buffer debe empezar al principio de un registro; {@code baseOffset} es su
+     * posición dentro del archivo, para que {@link #position()} sea absoluta.
+     */
+    public static MappedCsvReader over(ByteBuffer buffer, long baseOffset) {
+        return new MappedCsvReader(buffer.slice(), null, baseOffset, 0);
+    }
+
+    // =========================================================================
+    // LECTURA DE REGISTROS
+    // =========================================================================
+
+    /**
+     * Avanza al siguiente registro. Devuelve false al llegar al final del buffer.
+     */
+    public boolean next() {
+        if (position >= limit) {
+            fieldCount = 0;
+            return false;
+        }
+
+        int pos = position;
+        recordStart = pos;
+        int count = 0;
+        int fieldStart = skipLeadingWhitespace(pos);
+        boolean inQuotes = false;
+        boolean needsUnescape = false;
+
+        while (pos < limit) {
+            byte b = buffer.get(pos);
+            if (pos < fieldStart) {
+                pos++;
+                continue;
+            }
+            if (b == QUOTE) {
+                needsUnescape = true;
+                if (inQuotes && pos + 1 < limit && buffer.get(pos + 1) == QUOTE) {
+                    pos += 2;
+                    continue;
+                }
+                inQuotes = !inQuotes;
+            } else if (b == ESCAPE) {
+                needsUnescape = true;
+                if (pos + 1 < limit && isEscapable(buffer.get(pos + 1))) {
+                    pos += 2;
+                    continue;
+                }
+            } else if (!inQuotes) {
+                if (b == SEPARATOR) {
+                    count = addField(count, fieldStart, pos, needsUnescape);
+                    needsUnescape = false;
+                    fieldStart = skipLeadingWhitespace(pos + 1);
+                } else if (b == LF || b == CR) {
+                    break;
+                }
+            }
+            pos++;
+        }
+
+        count = addField(count, Math.min(fieldStart, pos), pos, needsUnescape);
+        fieldCount = count;
+        recordEnd = pos;
+
+        // Consumir el fin de línea (\n, \r\n o \r suelto)
+        if (pos < limit && buffer.get(pos) == CR) {
+            pos++;
+        }
+        if (pos < limit && buffer.get(pos) == LF) {
+            pos++;
+        }
+        position = pos;
+        publishedPosition = baseOffset + pos;
+        return true;
+    }
+
+    /**
+     * Lee el siguiente registro decodificando todos sus campos (útil para la cabecera).
+     */
+    public String[] readNext() {
+        if (!next()) {
+            return null;
+        }
+        String[] fields = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            fields[i] = getString(i);
+        }
+        return fields;
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Salta a un byte del archivo que debe ser el inicio de un registro, por ejemplo
+     * el guardado en un checkpoint tras el último lote confirmado.
+     */
+    public void seek(long offset) {
+        if (offset < baseOffset || offset > baseOffset + limit) {
+            throw new IllegalArgumentException("Posición fuera del archivo: " + offset);
+        }
+        position = (int) (offset - baseOffset);
+        publishedPosition = offset;
+        fieldCount = 0;
+        recordStart = position;
+        recordEnd = position;
+    }
+
+    /**
+     * Posición en el archivo tras el último registro leído (el inicio del siguiente).
+     * Se puede consultar desde otro hilo para calcular el progreso.
+     */
+    public long position() {
+        return publishedPosition;
+    }
+
+    public long size() {
+        return limit;
+    }
+
+    /**
+     * Fecha de modificación del archivo al abrirlo (milisegundos), o 0 en un lector
+     * creado con {@link #over}.
+     */
+    public long lastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Hash de los primeros 64 KB del archivo, o 0 en un lector creado con {@link #over}.
+     * Junto con el tamaño y la fecha identifica el archivo sin releerlo entero.
+     */
+    public long headHash() {
+        return headHash;
+    }
+
+    /**
+     * Vista de los bytes que quedan por leer, para repartirlos entre varios lectores
+     * (ver {@link ParallelCsvParser}).
+     */
+    ByteBuffer remainingBuffer() {
+        return buffer.slice(position, limit - position).asReadOnlyBuffer();
+    }
+
+    /**
+     * Publica el progreso cuando los registros los consume otro lector.
+     */
+    void publishPosition(long consumed) {
+        publishedPosition = consumed;
+    }
+
+    // =========================================================================
+    // ACCESO A CAMPOS (decodificación bajo demanda)
+    // =========================================================================
+
+    /**
+     * Longitud en bytes del campo sin decodificar (incluye comillas y escapes).
+     */
+    public int rawLength(int index) {
+        checkIndex(index);
+        return ends[index] - starts[index];
+    }
+
+    public boolean isBlank(int index) {
+        checkIndex(index);
+        int start = trimStart(starts[index], ends[index]);
+        int end = trimEnd(start, ends[index]);
+        if (!escaped[index]) {
+            return start == end;
+        }
+        return getString(index).isBlank();
+    }
+
+    /**
+     * Decodifica el campo a String (UTF-8), quitando comillas y escapes.
+     */
+    public String getString(int index) {
+        checkIndex(index);
+        int start = starts[index];
+        int end = ends[index];
+        if (!escaped[index]) {
+            int length = end - start;
+            byte[] bytes = scratch(length);
+            buffer.get(start, bytes, 0, length);
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+        int length = unescape(start, end);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Igual que {@code getString(index).trim()}, pero recortando antes de decodificar.
+     */
+    public String getTrimmedString(int index) {
+        checkIndex(index);
+        if (escaped[index]) {
+            return getString(index).trim();
+        }
+        int start = trimStart(starts[index], ends[index]);
+        int end = trimEnd(start, ends[index]);
+        int length = end - start;
+        byte[] bytes = scratch(length);
+        buffer.get(start, bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parsea el campo como long sin crear Strings (mismo resultado que
+     * {@code CsvUtils.parseLong(getTrimmedString(index))}).
+     */
+    public Optional<Long> getLong(int index) {
+        checkIndex(index);
+        if (escaped[index]) {
+            return CsvUtils.parseLong(getString(index).trim());
+        }
+        int start = trimStart(starts[index], ends[index]);
+        int end = trimEnd(start, ends[index]);
+        if (start == end) {
+            return Optional.empty();
+        }
+        if (end - start > 18) {
+            // Podría desbordar: que lo resuelva Long.parseLong
+            return CsvUtils.parseLong(getTrimmedString(index));
+        }
+
+        boolean negative = false;
+        int pos = start;
+        byte first = buffer.get(pos);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            pos++;
+            if (pos == end) {
+                return Optional.empty();
+            }
+        }
+        long value = 0;
+        for (; pos < end; pos++) {
+            int digit = buffer.get(pos) - '0';
+            if (digit < 0 || digit > 9) {
+                return Optional.empty();
+            }
+            value = value * 10 + digit;
+        }
+        return Optional.of(negative ? -value : value);
+    }
+
+    /**
+     * Hash de 64 bits de los bytes en bruto del registro actual (sin el salto de línea).
+     * Sirve para detectar filas que no han cambiado sin decodificar ningún campo.
+     * Lee de 8 en 8 bytes y mezcla como MurmurHash3 x64 (una sola vía).
+     */
+    public long recordHash() {
+        if (fieldCount == 0) {
+            throw new IllegalStateException("No hay registro actual");
+        }
+        return hash(recordStart, recordEnd);
+    }
+
+    private long hash(int start, int end) {
+        long h = 0x9E3779B97F4A7C15L ^ (end - start);
+        int pos = start;
+        for (; pos + 8 <= end; pos += 8) {
+            h = mixWord(h, buffer.getLong(pos));
+        }
+        long tail = 0;
+        for (; pos < end; pos++) {
+            tail = (tail << 8) | (buffer.get(pos) & 0xFF);
+        }
+        h = mixWord(h, tail);
+
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long mixWord(long h, long k) {
+        k *= 0x87c37b91114253d5L;
+        k = Long.rotateLeft(k, 31);
+        k *= 0x4cf5ad432745937fL;
+        h ^= k;
+        return Long.rotateLeft(h, 27) * 5 + 0x52dce729;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // El mapeo se libera cuando el buffer se recolecta; aquí solo se cierra el canal
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    // =========================================================================
+    // INTERNOS
+    // =========================================================================
+
+    private int addField(int count, int start, int end, boolean needsUnescape) {
+        if (count == starts.length) {
+            int newLength = count * 2;
+            starts = Arrays.copyOf(starts, newLength);
+            ends = Arrays.copyOf(ends, newLength);
+            escaped = Arrays.copyOf(escaped, newLength);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        escaped[count] = needsUnescape;
+        return count + 1;
+    }
+
+    /**
+     * Como withIgnoreLeadingWhiteSpace(true): los espacios delante de una comilla de
+     * apertura no forman parte del campo. En otro caso el campo empieza en {@code pos}.
+     */
+    private int skipLeadingWhitespace(int pos) {
+        int p = pos;
+        while (p < limit) {
+            byte b = buffer.get(p);
+            if (b != ' ' && b != '\t') {
+                break;
+            }
+            p++;
+        }
+        return p < limit && buffer.get(p) == QUOTE ? p : pos;
+    }
+
+    /**
+     * Copia el rango a {@link #scratch} quitando comillas y escapes con la misma
+     * máquina de estados que {@link #next()}. Devuelve los bytes escritos.
+     */
+    private int unescape(int start, int end) {
+        byte[] out = scratch(end - start);
+        int length = 0;
+        boolean inQuotes = false;
+        for (int pos = start; pos < end; pos++) {
+            byte b = buffer.get(pos);
+            if (b == QUOTE) {
+                if (inQuotes && pos + 1 < end && buffer.get(pos + 1) == QUOTE) {
+                    out[length++] = QUOTE;
+                    pos++;
+                } else {
+                    inQuotes = !inQuotes;
+                }
+            } else if (b == ESCAPE) {
+                // Como OpenCSV: la barra siempre se descarta y solo protege comilla o barra
+                if (pos + 1 < end && isEscapable(buffer.get(pos + 1))) {
+                    out[length++] = buffer.get(++pos);
+                }
+            } else {
+                out[length++] = b;
+            }
+        }
+        return length;
+    }
+
+    private static boolean isEscapable(byte b) {
+        return b == QUOTE || b == ESCAPE;
+    }
+
+    // Mismo criterio que String.trim(); los bytes UTF-8 multibyte son negativos y no cuentan
+    private static boolean isTrimmable(byte b) {
+        return b >= 0 && b <= ' ';
+    }
+
+    private int trimStart(int start, int end) {
+        while (start < end && isTrimmable(buffer.get(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimEnd(int start, int end) {
+        while (end > start && isTrimmable(buffer.get(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private byte[] scratch(int length) {
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        return scratch;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Campo " + index + " fuera de rango (" + fieldCount + " campos)");
+        }
+    }
+}
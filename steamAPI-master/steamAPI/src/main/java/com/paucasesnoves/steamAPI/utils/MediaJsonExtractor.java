@@ -0,0 +1,347 @@
+package com.paucasesnoves.steamAPI.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Extractor de URLs de las columnas screenshots y movies de steam_media_data.csv.
+ * <p>
+ * Los campos son literales de Python (repr de listas de dicts), no JSON: las cadenas van
+ * entre comillas simples, o dobles si contienen una simple ("Assassin's Creed"), y hay
+ * True/False/None sin comillas. En lugar de reescribir el campo a JSON y deserializarlo
+ * en mapas, se recorre el texto una sola vez: las claves se comparan en el sitio, lo que
+ * no interesa se salta sin copiarlo y solo se crea un String por URL devuelta.
+ * <p>
+ * Admite cadenas con cualquiera de las dos comillas y los escapes de Python (barra,
+ * comillas, saltos de línea, tabuladores y los hexadecimales x, u y U), números, palabras
+ * sueltas y anidación arbitraria.
+ * Un campo malformado lanza IllegalArgumentException con la posición del error.
+ * <p>
+ * No es thread-safe: cada llamada estática usa su propia instancia.
+ */
+public final class MediaJsonExtractor {
+
+    private static final String[] SCREENSHOT_KEYS = {"path_full"};
+    private static final String[] MOVIE_KEYS = {"mp4", "webm"};
+    private static final String[] VARIANT_KEYS = {"max"};
+
+    private final String text;
+    private final int end;
+    private int pos;
+
+    private MediaJsonExtractor(String text) {
+        this.text = text;
+        this.end = text.length();
+    }
+
+    /**
+     * URL 'path_full' de cada screenshot. Ejemplo de campo:
+     * [{'id': 0, 'path_thumbnail': '...', 'path_full': '...'}, ...]
+     */
+    public static List<String> screenshotUrls(String field) {
+        return new MediaJsonExtractor(field).extract(false);
+    }
+
+    /**
+     * URL de cada vídeo: mp4 (su calidad 'max' si es un dict) y, si no hay, webm.
+     * Un valor suelto (True, False, None) en lugar de la lista se trata como sin vídeos.
+     */
+    public static List<String> movieUrls(String field) {
+        return new MediaJsonExtractor(field).extract(true);
+    }
+
+    private List<String> extract(boolean movies) {
+        skipWhitespace();
+        if (pos == end) {
+            return new ArrayList<>();
+        }
+        if (text.charAt(pos) != '[') {
+            skipValue();
+            expectEnd();
+            return new ArrayList<>();
+        }
+        pos++;
+        List<String> urls = new ArrayList<>();
+        if (!enter(']')) {
+            expectEnd();
+            return urls;
+        }
+        do {
+            if (peek() == '{') {
+                String url = movies ? readMovie() : readScreenshot();
+                if (url != null) {
+                    urls.add(url);
+                }
+            } else {
+                skipValue();
+            }
+        } while (next(']'));
+        expectEnd();
+        return urls;
+    }
+
+    // ---- Dicts de la lista ----
+
+    private String readScreenshot() {
+        String url = null;
+        pos++; // '{'
+        if (enter('}')) {
+            do {
+                if (readKey(SCREENSHOT_KEYS) == 0 && isQuote(peek())) {
+                    url = readString();
+                } else {
+                    skipValue();
+                }
+            } while (next('}'));
+        }
+        return url;
+    }
+
+    private String readMovie() {
+        String mp4 = null;
+        String webm = null;
+        pos++; // '{'
+        if (enter('}')) {
+            do {
+                switch (readKey(MOVIE_KEYS)) {
+                    case 0 -> mp4 = readVariant();
+                    case 1 -> webm = readVariant();
+                    default -> skipValue();
+                }
+            } while (next('}'));
+        }
+        return mp4 != null ? mp4 : webm;
+    }
+
+    /**
+     * Valor de 'mp4' o 'webm': una URL directa o un dict de calidades del que se toma 'max'.
+     */
+    private String readVariant() {
+        char c = peek();
+        if (isQuote(c)) {
+            return readString();
+        }
+        if (c != '{') {
+            skipValue();
+            return null;
+        }
+        String max = null;
+        pos++;
+        if (enter('}')) {
+            do {
+                if (readKey(VARIANT_KEYS) == 0 && isQuote(peek())) {
+                    max = readString();
+                } else {
+                    skipValue();
+                }
+            } while (next('}'));
+        }
+        return max;
+    }
+
+    // ---- Estructura ----
+
+    /**
+     * Tras abrir una lista o dict: false (y consume el cierre) si está vacío.
+     */
+    private boolean enter(char close) {
+        if (peek() == close) {
+            pos++;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Tras un elemento: true si sigue otro (',') y false si se cierra el contenedor.
+     */
+    private boolean next(char close) {
+        char c = peek();
+        pos++;
+        if (c == ',') {
+            return true;
+        }
+        if (c == close) {
+            return false;
+        }
+        throw error("se esperaba ',' o '" + close + "'");
+    }
+
+    /**
+     * Lee una clave y los ':' que la siguen, dejando la posición en el valor.
+     * @return índice de la clave en {@code names}, o -1 si no es ninguna
+     */
+    private int readKey(String[] names) {
+        int found = -1;
+        if (isQuote(peek())) {
+            int start = pos + 1;
+            skipString();
+            int length = pos - 1 - start;
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].length() == length && text.regionMatches(start, names[i], 0, length)) {
+                    found = i;
+                    break;
+                }
+            }
+        } else {
+            skipValue();
+        }
+        if (peek() != ':') {
+            throw error("se esperaba ':'");
+        }
+        pos++;
+        skipWhitespace();
+        return found;
+    }
+
+    // ---- Valores ----
+
+    private String readString() {
+        char quote = text.charAt(pos);
+        int start = pos + 1;
+        int i = start;
+        while (i < end) {
+            char c = text.charAt(i);
+            if (c == quote) {
+                pos = i + 1;
+                return text.substring(start, i);
+            }
+            if (c == '\\') {
+                return readEscapedString(start, quote);
+            }
+            i++;
+        }
+        throw error("cadena sin cerrar");
+    }
+
+    private String readEscapedString(int start, char quote) {
+        StringBuilder sb = new StringBuilder();
+        int i = start;
+        while (i < end) {
+            char c = text.charAt(i++);
+            if (c == quote) {
+                pos = i;
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (i == end) {
+                break;
+            }
+            char e = text.charAt(i++);
+            switch (e) {
+                case 'n' -> sb.append('\n');
+                case 't' -> sb.append('\t');
+                case 'r' -> sb.append('\r');
+                case 'x' -> i = appendCodePoint(sb, i, 2);
+                case 'u' -> i = appendCodePoint(sb, i, 4);
+                case 'U' -> i = appendCodePoint(sb, i, 8);
+                default -> sb.append(e);
+            }
+        }
+        pos = i;
+        throw error("cadena sin cerrar");
+    }
+
+    private int appendCodePoint(StringBuilder sb, int from, int digits) {
+        if (from + digits > end) {
+            pos = from;
+            throw error("escape incompleto");
+        }
+        try {
+            sb.appendCodePoint(Integer.parseInt(text, from, from + digits, 16));
+        } catch (IllegalArgumentException e) {
+            pos = from;
+            throw error("escape inválido");
+        }
+        return from + digits;
+    }
+
+    private void skipString() {
+        char quote = text.charAt(pos++);
+        while (pos < end) {
+            char c = text.charAt(pos++);
+            if (c == quote) {
+                return;
+            }
+            if (c == '\\') {
+                pos++;
+            }
+        }
+        throw error("cadena sin cerrar");
+    }
+
+    /**
+     * Salta un valor completo (cadena, lista, dict, número o palabra) y el espacio que le sigue.
+     */
+    private void skipValue() {
+        char c = peek();
+        if (isQuote(c)) {
+            skipString();
+        } else if (c == '[' || c == '{') {
+            int depth = 0;
+            do {
+                c = text.charAt(pos);
+                if (isQuote(c)) {
+                    skipString();
+                    continue;
+                }
+                if (c == '[' || c == '{') {
+                    depth++;
+                } else if (c == ']' || c == '}') {
+                    depth--;
+                }
+                pos++;
+            } while (depth > 0 && pos < end);
+            if (depth > 0) {
+                throw error("contenedor sin cerrar");
+            }
+        } else {
+            int start = pos;
+            while (pos < end && !isDelimiter(text.charAt(pos))) {
+                pos++;
+            }
+            if (pos == start) {
+                throw error("valor vacío");
+            }
+        }
+        skipWhitespace();
+    }
+
+    // ---- Utilidades ----
+
+    private char peek() {
+        skipWhitespace();
+        if (pos >= end) {
+            throw error("fin inesperado");
+        }
+        return text.charAt(pos);
+    }
+
+    private void skipWhitespace() {
+        while (pos < end && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private void expectEnd() {
+        skipWhitespace();
+        if (pos < end) {
+            throw error("contenido tras el final");
+        }
+    }
+
+    private static boolean isQuote(char c) {
+        return c == '\'' || c == '"';
+    }
+
+    private static boolean isDelimiter(char c) {
+        return c == ',' || c == ':' || c == ']' || c == '}' || Character.isWhitespace(c);
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " en la posición " + pos);
+    }
+}
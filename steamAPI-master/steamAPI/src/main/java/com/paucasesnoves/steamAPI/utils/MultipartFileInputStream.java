@@ -0,0 +1,213 @@
+package com.paucasesnoves.steamAPI.utils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Lee en streaming el primer archivo de un cuerpo multipart/form-data.
+ * <p>
+ * El parser multipart del contenedor guarda cada parte en memoria o en un temporal
+ * antes de entregarla; aquí el contenido del archivo se lee directamente del cuerpo de
+ * la petición con un buffer fijo, así que un volcado de varios GB no ocupa disco ni
+ * memoria. Las partes sin filename (campos de formulario) se saltan.
+ * <p>
+ * No es thread-safe.
+ */
+public final class MultipartFileInputStream extends InputStream {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final InputStream in;
+    private final byte[] delimiter; // "\r\n--" + boundary
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private boolean eof;
+    private boolean partEnded;
+    private String filename;
+
+    private MultipartFileInputStream(InputStream in, String boundary) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.US_ASCII);
+        // El primer delimitador no lleva CRLF delante: se simula para tratarlo igual que los demás
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        limit = 2;
+    }
+
+    /**
+     * Avanza hasta el contenido del primer archivo del multipart.
+     * @throws IOException si el cuerpo no contiene ningún archivo o está truncado
+     */
+    public static MultipartFileInputStream open(InputStream in, String boundary) throws IOException {
+        if (boundary == null || boundary.isEmpty() || boundary.length() > 70) {
+            throw new IOException("Boundary multipart inválido: " + boundary);
+        }
+        MultipartFileInputStream stream = new MultipartFileInputStream(in, boundary);
+        stream.skipToFilePart();
+        return stream;
+    }
+
+    /**
+     * Nombre del archivo según Content-Disposition.
+     */
+    public String getFilename() {
+        return filename;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int n = read(single, 0, 1);
+        return n < 0 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (partEnded) {
+            return -1;
+        }
+        fill(delimiter.length);
+        int match = indexOf(delimiter, pos, limit);
+        int available;
+        if (match >= 0) {
+            available = match - pos;
+            if (available == 0) {
+                pos += delimiter.length;
+                partEnded = true;
+                return -1;
+            }
+        } else if (eof) {
+            throw new EOFException("Multipart truncado: falta el delimitador de cierre");
+        } else {
+            // Los últimos bytes podrían ser el inicio de un delimitador partido entre lecturas
+            available = limit - pos - (delimiter.length - 1);
+        }
+        int n = Math.min(len, available);
+        System.arraycopy(buffer, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // =========================================================================
+    // NAVEGACIÓN ENTRE PARTES
+    // =========================================================================
+
+    private void skipToFilePart() throws IOException {
+        byte[] discard = new byte[BUFFER_SIZE];
+        while (true) {
+            // Resto de la parte anterior (o preámbulo) hasta el delimitador
+            while (read(discard, 0, discard.length) >= 0) {
+                // descartar
+            }
+            String boundaryLine = readLine();
+            if (boundaryLine.startsWith("--")) {
+                throw new IOException("El multipart no contiene ningún archivo");
+            }
+
+            String partFilename = null;
+            String header;
+            while (!(header = readLine()).isEmpty()) {
+                if (header.toLowerCase(Locale.ROOT).startsWith("content-disposition:")) {
+                    partFilename = parseFilename(header);
+                }
+            }
+            partEnded = false;
+            if (partFilename != null) {
+                filename = partFilename;
+                return;
+            }
+        }
+    }
+
+    private static String parseFilename(String contentDisposition) {
+        for (String param : contentDisposition.split(";")) {
+            String trimmed = param.trim();
+            if (trimmed.toLowerCase(Locale.ROOT).startsWith("filename=")) {
+                String value = trimmed.substring("filename=".length()).trim();
+                if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                    value = value.substring(1, value.length() - 1);
+                }
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lee una línea de cabecera hasta CRLF (sin incluirlo).
+     */
+    private String readLine() throws IOException {
+        while (true) {
+            int end = indexOf(CRLF, pos, limit);
+            if (end >= 0) {
+                String line = new String(buffer, pos, end - pos, StandardCharsets.UTF_8);
+                pos = end + CRLF.length;
+                return line;
+            }
+            if (eof) {
+                throw new EOFException("Multipart truncado en las cabeceras de una parte");
+            }
+            if (limit - pos == buffer.length) {
+                throw new IOException("Cabecera multipart demasiado larga");
+            }
+            fill(limit - pos + 1);
+        }
+    }
+
+    // =========================================================================
+    // BUFFER
+    // =========================================================================
+
+    /**
+     * Intenta dejar al menos {@code needed} bytes sin consumir en el buffer.
+     */
+    private void fill(int needed) throws IOException {
+        if (limit - pos >= needed || eof) {
+            return;
+        }
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        while (limit < needed && !eof) {
+            int n = in.read(buffer, limit, buffer.length - limit);
+            if (n < 0) {
+                eof = true;
+            } else {
+                limit += n;
+            }
+        }
+    }
+
+    private int indexOf(byte[] pattern, int from, int to) {
+        int last = to - pattern.length;
+        byte first = pattern[0];
+        for (int i = from; i <= last; i++) {
+            if (buffer[i] != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < pattern.length && buffer[i + j] == pattern[j]) {
+                j++;
+            }
+            if (j == pattern.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
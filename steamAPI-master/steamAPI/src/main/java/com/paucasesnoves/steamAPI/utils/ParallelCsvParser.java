@@ -0,0 +1,298 @@
+package com.paucasesnoves.steamAPI.utils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * Parseo en paralelo de un CSV mapeado en memoria.
+ * <p>
+ * El archivo se divide en rangos de bytes que se parsean en un ForkJoinPool con
+ * {@link MappedCsvReader}. Un corte arbitrario puede caer dentro de un campo entre
+ * comillas con saltos de línea, así que cada rango se resincroniza en un límite de
+ * registro real en tres fases:
+ * <ol>
+ *     <li>En paralelo, cada trozo cuenta sus comillas (paridad) y anota el primer '\n'
+ *     que quedaría fuera de comillas empezando fuera y empezando dentro de ellas.</li>
+ *     <li>En secuencia (un paso por trozo), la paridad acumulada dice en qué estado
+ *     empieza cada trozo y por tanto cuál de los dos '\n' es el límite bueno.</li>
+ *     <li>En paralelo, cada rango ya alineado se convierte en objetos con el mapper.</li>
+ * </ol>
+ * Los resultados se entregan al consumidor en el hilo que llama, por trozos completos:
+ * en orden de archivo ({@link Order#ORDERED}) o según terminan ({@link Order#ARRIVAL}).
+ * Dentro de cada trozo siempre se respeta el orden del archivo. Los trozos miden como
+ * mucho {@link #MAX_CHUNK_BYTES} (un archivo grande se parte en más trozos, no en trozos
+ * más grandes) y como mucho hay 2 × paralelismo trozos parseados pendientes de entregar,
+ * así que la memoria no crece con el tamaño del archivo.
+ * <p>
+ * Solo se resincroniza en '\n': un archivo con finales de línea '\r' sueltos se parsea
+ * como un único trozo.
+ */
+public final class ParallelCsvParser {
+
+    public enum Order {
+        /** En orden de archivo (steam.csv viene ordenado por appid). */
+        ORDERED,
+        /** En el orden en que terminan los trozos; no espera a los más lentos. */
+        ARRIVAL
+    }
+
+    private static final byte QUOTE = '"';
+    private static final byte ESCAPE = '\\';
+    private static final byte LF = '\n';
+
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int MIN_CHUNK_BYTES = 1 << 20;
+    static final int MAX_CHUNK_BYTES = 8 << 20;
+
+    private ParallelCsvParser() {
+    }
+
+    /**
+     * Parsea los registros que quedan en {@code source} (normalmente ya se ha leído la
+     * cabecera). El mapper corre en los hilos del pool y recibe el lector posicionado en
+     * cada registro (su {@code position()} es el byte del archivo donde acaba); si
+     * devuelve null el registro se descarta. El consumidor corre en el
+     * hilo que llama, y si lanza una excepción se cancela el resto del parseo.
+     * La posición de {@code source} avanza con los bytes entregados para medir el progreso.
+     */
+    public static <T> void parse(MappedCsvReader source,
+                                 int parallelism,
+                                 Order order,
+                                 Function<MappedCsvReader, T> mapper,
+                                 Consumer<T> consumer) {
+        parse(source, parallelism, order, mapper, consumer, MAX_CHUNK_BYTES);
+    }
+
+    /**
+     * Igual, con otro tamaño máximo de trozo (los tests lo bajan para forzar cortes).
+     */
+    static <T> void parse(MappedCsvReader source,
+                          int parallelism,
+                          Order order,
+                          Function<MappedCsvReader, T> mapper,
+                          Consumer<T> consumer,
+                          int maxChunkBytes) {
+        ByteBuffer data = source.remainingBuffer();
+        long base = source.position();
+        int threads = Math.max(1, parallelism);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            int[] ranges = splitOnRecords(data, threads, maxChunkBytes, pool);
+            deliver(data, base, ranges, threads, order, mapper, consumer, pool,
+                    delivered -> source.publishPosition(base + delivered));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // =========================================================================
+    // FASES 1 Y 2: CORTE EN LÍMITES DE REGISTRO
+    // =========================================================================
+
+    /**
+     * Resultado de escanear un trozo empezando fuera de comillas: si tiene un número
+     * impar de comillas y la posición tras el primer '\n' con paridad par e impar.
+     */
+    private record ChunkScan(boolean oddQuotes, int breakIfOutside, int breakIfInside) {
+    }
+
+    /**
+     * Devuelve los inicios de registro de cada rango más el final ({@code ranges[i]}
+     * a {@code ranges[i + 1]}).
+     */
+    private static int[] splitOnRecords(ByteBuffer data, int threads, int maxChunkBytes, ForkJoinPool pool) {
+        int length = data.limit();
+        int chunks = (int) Math.max(1, Math.min((long) threads * CHUNKS_PER_THREAD, length / MIN_CHUNK_BYTES));
+        // Con archivos grandes manda el tamaño máximo: más trozos en lugar de trozos mayores
+        chunks = Math.max(chunks, (int) ((length + (long) maxChunkBytes - 1) / maxChunkBytes));
+
+        int[] nominal = new int[chunks + 1];
+        for (int i = 1; i < chunks; i++) {
+            nominal[i] = Math.max(nominal[i - 1], alignOutsideEscape(data, (int) ((long) length * i / chunks)));
+        }
+        nominal[chunks] = length;
+
+        List<Future<ChunkScan>> scans = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            int start = nominal[i];
+            int end = nominal[i + 1];
+            scans.add(pool.submit(() -> scan(data, start, end)));
+        }
+
+        List<Integer> starts = new ArrayList<>(chunks + 1);
+        starts.add(0);
+        boolean inQuotes = false; // estado al inicio del trozo actual
+        for (int i = 0; i < chunks; i++) {
+            ChunkScan current = await(scans.get(i));
+            if (i > 0) {
+                int recordStart = inQuotes ? current.breakIfInside() : current.breakIfOutside();
+                if (recordStart >= 0 && recordStart > starts.get(starts.size() - 1) && recordStart < length) {
+                    starts.add(recordStart);
+                }
+            }
+            inQuotes ^= current.oddQuotes();
+        }
+        starts.add(length);
+
+        return starts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Mueve un corte para que no separe una barra de escape del carácter que protege:
+     * salta la racha de barras y, si le sigue una comilla, también la comilla.
+     */
+    private static int alignOutsideEscape(ByteBuffer data, int position) {
+        int length = data.limit();
+        if (position == 0 || data.get(position - 1) != ESCAPE) {
+            return position;
+        }
+        int p = position;
+        while (p < length && data.get(p) == ESCAPE) {
+            p++;
+        }
+        if (p < length && data.get(p) == QUOTE) {
+            p++;
+        }
+        return p;
+    }
+
+    /**
+     * Misma lógica de comillas y escapes que {@link MappedCsvReader#next()}. Un "" dentro
+     * de comillas son dos comillas seguidas sin salto de línea en medio, así que contar
+     * comillas sueltas da la misma paridad en cada '\n'.
+     */
+    private static ChunkScan scan(ByteBuffer data, int start, int end) {
+        int length = data.limit();
+        int quotes = 0;
+        int breakIfOutside = -1;
+        int breakIfInside = -1;
+        int pos = start;
+        while (pos < end) {
+            byte b = data.get(pos);
+            if (b == ESCAPE) {
+                if (pos + 1 < length && (data.get(pos + 1) == QUOTE || data.get(pos + 1) == ESCAPE)) {
+                    pos += 2;
+                    continue;
+                }
+            } else if (b == QUOTE) {
+                quotes++;
+            } else if (b == LF) {
+                if ((quotes & 1) == 0) {
+                    if (breakIfOutside < 0) {
+                        breakIfOutside = pos + 1;
+                    }
+                } else if (breakIfInside < 0) {
+                    breakIfInside = pos + 1;
+                }
+            }
+            pos++;
+        }
+        return new ChunkScan((quotes & 1) == 1, breakIfOutside, breakIfInside);
+    }
+
+    // =========================================================================
+    // FASE 3: PARSEO Y ENTREGA
+    // =========================================================================
+
+    private record ParsedChunk<T>(int index, List<T> records, int bytes, Throwable error) {
+    }
+
+    private static <T> void deliver(ByteBuffer data,
+                                    long base,
+                                    int[] ranges,
+                                    int threads,
+                                    Order order,
+                                    Function<MappedCsvReader, T> mapper,
+                                    Consumer<T> consumer,
+                                    ForkJoinPool pool,
+                                    LongConsumer progress) {
+        int chunkCount = ranges.length - 1;
+        int window = threads * 2;
+        LinkedBlockingQueue<ParsedChunk<T>> completed = new LinkedBlockingQueue<>();
+        Map<Integer, ParsedChunk<T>> pending = new HashMap<>();
+
+        int submitted = 0;
+        int delivered = 0;
+        int nextInOrder = 0;
+        long deliveredBytes = 0;
+
+        while (delivered < chunkCount) {
+            while (submitted < chunkCount && submitted - delivered < window) {
+                int index = submitted++;
+                pool.execute(() -> completed.add(parseChunk(data, base, ranges, index, mapper)));
+            }
+
+            ParsedChunk<T> chunk = take(completed);
+            if (chunk.error() != null) {
+                throw new IllegalStateException("Error parseando el trozo " + chunk.index(), chunk.error());
+            }
+
+            List<ParsedChunk<T>> ready = new ArrayList<>(1);
+            if (order == Order.ARRIVAL) {
+                ready.add(chunk);
+            } else {
+                pending.put(chunk.index(), chunk);
+                while (pending.containsKey(nextInOrder)) {
+                    ready.add(pending.remove(nextInOrder++));
+                }
+            }
+
+            for (ParsedChunk<T> next : ready) {
+                next.records().forEach(consumer);
+                delivered++;
+                deliveredBytes += next.bytes();
+                progress.accept(deliveredBytes);
+            }
+        }
+    }
+
+    private static <T> ParsedChunk<T> parseChunk(ByteBuffer data, long base, int[] ranges, int index,
+                                                 Function<MappedCsvReader, T> mapper) {
+        int start = ranges[index];
+        int length = ranges[index + 1] - start;
+        try {
+            MappedCsvReader reader = MappedCsvReader.over(data.slice(start, length), base + start);
+            List<T> records = new ArrayList<>();
+            while (reader.next()) {
+                T record = mapper.apply(reader);
+                if (record != null) {
+                    records.add(record);
+                }
+            }
+            return new ParsedChunk<>(index, records, length, null);
+        } catch (Throwable t) {
+            return new ParsedChunk<>(index, List.of(), length, t);
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Parseo interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error escaneando el CSV", e.getCause());
+        }
+    }
+
+    private static <T> T take(LinkedBlockingQueue<T> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Parseo interrumpido", e);
+        }
+    }
+}
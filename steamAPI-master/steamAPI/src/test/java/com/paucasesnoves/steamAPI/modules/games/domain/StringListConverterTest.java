@@ -0,0 +1,61 @@
+package com.paucasesnoves.steamAPI.modules.games.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StringListConverterTest {
+
+    private final StringListConverter converter = new StringListConverter();
+
+    @Test
+    void roundTripsNewlinesAndBackslashes() {
+        List<String> values = List.of(
+                "https://cdn/0.jpg",
+                "dos\nlíneas",
+                "barra\\n literal",
+                "C:\\ruta\\",
+                "\\",
+                "\n",
+                "",
+                "\\\\n\n\\");
+
+        String encoded = converter.convertToDatabaseColumn(values);
+        assertThat(encoded.split("\n", -1)).hasSize(values.size());
+        assertThat(converter.convertToEntityAttribute(encoded)).isEqualTo(values);
+        assertThat(StringListConverter.decode(encoded)).isEqualTo(values);
+    }
+
+    @Test
+    void escapesAreWrittenAsDocumented() {
+        assertThat(StringListConverter.encode(List.of("a\nb", "c\\d"))).isEqualTo("a\\nb\nc\\\\d");
+    }
+
+    @Test
+    void emptyListIsStoredAsNull() {
+        assertThat(converter.convertToDatabaseColumn(List.of())).isNull();
+        assertThat(converter.convertToDatabaseColumn(null)).isNull();
+        assertThat(converter.convertToEntityAttribute(null)).isEmpty();
+    }
+
+    @Test
+    void singleEmptyStringSurvives() {
+        String encoded = converter.convertToDatabaseColumn(List.of(""));
+        assertThat(encoded).isEmpty();
+        assertThat(converter.convertToEntityAttribute(encoded)).containsExactly("");
+    }
+
+    @Test
+    void readListIsWrittenBackUnchangedAndIsReadOnly() {
+        String encoded = "x\\\\y\nz";
+        List<String> read = converter.convertToEntityAttribute(encoded);
+
+        assertThat(converter.convertToDatabaseColumn(read)).isSameAs(encoded);
+        assertThat(new ArrayList<>(read)).containsExactly("x\\y", "z");
+        assertThatThrownBy(() -> read.add("w")).isInstanceOf(UnsupportedOperationException.class);
+    }
+}
@@ -0,0 +1,83 @@
+package com.paucasesnoves.steamAPI.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedCsvReaderTest {
+
+    private static final String CSV = "app_id,name\n"
+            + "10,\"Counter-Strike\"\r\n"
+            + "20,\"Team \"\"Fortress\"\"\nClassic\"\n"
+            + "30,Día\n"
+            + "40,\"último\"";
+
+    @Test
+    void seekToAnyRecordPositionReadsTheSameRecords() {
+        MappedCsvReader reader = reader(CSV, 0);
+        List<Long> starts = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        reader.readNext();
+        starts.add(reader.position());
+        while (reader.next()) {
+            names.add(reader.getString(1));
+            starts.add(reader.position());
+        }
+        assertThat(names).containsExactly("Counter-Strike", "Team \"Fortress\"\nClassic", "Día", "último");
+        assertThat(starts.get(starts.size() - 1)).isEqualTo(reader.size());
+
+        // Desde cada posición guardada (como un checkpoint) se leen los mismos registros
+        for (int i = 0; i < starts.size(); i++) {
+            reader.seek(starts.get(i));
+            assertThat(reader.position()).isEqualTo(starts.get(i));
+            List<String> rest = new ArrayList<>();
+            while (reader.next()) {
+                rest.add(reader.getString(1));
+            }
+            assertThat(rest).isEqualTo(names.subList(i, names.size()));
+            assertThat(reader.position()).isEqualTo(reader.size());
+        }
+    }
+
+    @Test
+    void positionsAreAbsoluteWithABaseOffset() {
+        long base = 1_000;
+        MappedCsvReader reader = reader(CSV, base);
+        reader.readNext();
+        long afterHeader = reader.position();
+        assertThat(afterHeader).isEqualTo(base + "app_id,name\n".length());
+
+        reader.next();
+        reader.next();
+        long afterSecond = reader.position();
+        assertThat(reader.getLong(0)).contains(20L);
+
+        reader.seek(afterHeader);
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.getLong(0)).contains(10L);
+
+        reader.seek(afterSecond);
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.getString(1)).isEqualTo("Día");
+    }
+
+    @Test
+    void seekOutsideTheBufferIsRejected() {
+        MappedCsvReader reader = reader(CSV, 100);
+        assertThatThrownBy(() -> reader.seek(99)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> reader.seek(100 + reader.size() + 1)).isInstanceOf(IllegalArgumentException.class);
+
+        reader.seek(100 + reader.size());
+        assertThat(reader.next()).isFalse();
+    }
+
+    private static MappedCsvReader reader(String csv, long baseOffset) {
+        return MappedCsvReader.over(ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)), baseOffset);
+    }
+}
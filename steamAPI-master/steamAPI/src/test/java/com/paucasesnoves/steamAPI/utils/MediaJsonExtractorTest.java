@@ -0,0 +1,68 @@
+package com.paucasesnoves.steamAPI.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MediaJsonExtractorTest {
+
+    @Test
+    void screenshotsWithMixedQuotes() {
+        String field = "[{'id': 0, 'path_thumbnail': 'https://cdn/t0.jpg', 'path_full': 'https://cdn/0.jpg'}, "
+                + "{\"id\": 1, \"path_full\": \"https://cdn/Assassin's Creed.jpg\", 'flag': True}, "
+                + "{'id': 2, 'path_thumbnail': 'https://cdn/t2.jpg'}]";
+
+        assertThat(MediaJsonExtractor.screenshotUrls(field))
+                .containsExactly("https://cdn/0.jpg", "https://cdn/Assassin's Creed.jpg");
+    }
+
+    @Test
+    void moviesPreferMp4MaxAndFallBackToWebm() {
+        String field = "[{'id': 1, 'name': 'Trailer', 'webm': {'480': 'https://cdn/1.webm', 'max': 'https://cdn/1max.webm'}, "
+                + "'mp4': {'480': 'https://cdn/1.mp4', 'max': 'https://cdn/1max.mp4'}, 'highlight': True}, "
+                + "{'id': 2, 'webm': {'max': 'https://cdn/2max.webm'}, 'mp4': None}, "
+                + "{'id': 3, 'mp4': 'https://cdn/3.mp4'}, "
+                + "{'id': 4, 'thumbnail': 'https://cdn/4.jpg'}]";
+
+        assertThat(MediaJsonExtractor.movieUrls(field))
+                .containsExactly("https://cdn/1max.mp4", "https://cdn/2max.webm", "https://cdn/3.mp4");
+    }
+
+    @Test
+    void pythonEscapesAreDecoded() {
+        String field = "[{'path_full': 'https://cdn/caf\\xe9.jpg'}, "
+                + "{'path_full': 'https://cdn/\\u65e5\\u672c.jpg'}, "
+                + "{'path_full': 'https://cdn/\\U0001F600.jpg'}, "
+                + "{'path_full': 'it\\'s \\\\ \"quoted\"\\tend'}, "
+                + "{\"path_full\": \"it\\\"s\"}]";
+
+        assertThat(MediaJsonExtractor.screenshotUrls(field)).containsExactly(
+                "https://cdn/café.jpg",
+                "https://cdn/日本.jpg",
+                "https://cdn/" + new String(Character.toChars(0x1F600)) + ".jpg",
+                "it's \\ \"quoted\"\tend",
+                "it\"s");
+    }
+
+    @Test
+    void bareValuesInPlaceOfTheListMeanNoMedia() {
+        assertThat(MediaJsonExtractor.movieUrls("True")).isEmpty();
+        assertThat(MediaJsonExtractor.movieUrls("None")).isEmpty();
+        assertThat(MediaJsonExtractor.movieUrls("  False ")).isEmpty();
+        assertThat(MediaJsonExtractor.screenshotUrls("None")).isEmpty();
+        assertThat(MediaJsonExtractor.screenshotUrls("")).isEmpty();
+        assertThat(MediaJsonExtractor.screenshotUrls("[]")).isEmpty();
+    }
+
+    @Test
+    void malformedFieldsReportThePosition() {
+        assertThatThrownBy(() -> MediaJsonExtractor.screenshotUrls("[{'path_full': 'https://cdn/0.jpg'"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("posición");
+        assertThatThrownBy(() -> MediaJsonExtractor.screenshotUrls("[{'path_full': 'sin cerrar}]"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MediaJsonExtractor.screenshotUrls("[{'path_full': '\\xZZ'}]"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
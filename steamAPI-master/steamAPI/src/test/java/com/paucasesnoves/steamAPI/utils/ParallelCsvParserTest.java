@@ -0,0 +1,81 @@
+package com.paucasesnoves.steamAPI.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParallelCsvParserTest {
+
+    // Comillas con saltos de línea, "" y \" dentro, campos vacíos y un \r\n
+    private static final String CSV = String.join("\n",
+            "1,\"uno\",simple",
+            "2,\"dos\nlíneas\",\"con \"\"comillas\"\"\"",
+            "3,\"\"\"\",\"\n\n\"",
+            "4,\"a,b\",\"escape \\\" y \\\\\"",
+            "5,,\"\"\"\n\"\"\"",
+            "6,\"fin \"\"\r\nlargo\"\"\",x\r",
+            "7,último,\"\"");
+
+    @Test
+    void chunkBoundariesInsideQuotesKeepRecordsIntact() {
+        List<List<String>> expected = readSequentially(CSV);
+        assertThat(expected).hasSize(7);
+        assertThat(expected.get(1)).containsExactly("2", "dos\nlíneas", "con \"comillas\"");
+        assertThat(expected.get(4)).containsExactly("5", "", "\"\n\"");
+
+        // Con trozos de 1 byte en adelante cada corte cae en algún momento dentro de
+        // comillas, entre las dos de un "" o tras una barra de escape
+        int length = CSV.getBytes(StandardCharsets.UTF_8).length;
+        for (int maxChunkBytes = 1; maxChunkBytes <= length; maxChunkBytes++) {
+            for (int threads : new int[]{1, 3}) {
+                assertThat(readInParallel(CSV, threads, maxChunkBytes))
+                        .as("trozos de %d bytes, %d hilos", maxChunkBytes, threads)
+                        .isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void sourcePositionAdvancesToTheEnd() {
+        MappedCsvReader source = reader(CSV);
+        source.readNext(); // como los importadores, la primera fila se lee antes
+        ParallelCsvParser.parse(source, 2, ParallelCsvParser.Order.ORDERED,
+                ParallelCsvParserTest::fields, record -> { }, 5);
+
+        assertThat(source.position()).isEqualTo(source.size());
+    }
+
+    private static List<List<String>> readSequentially(String csv) {
+        MappedCsvReader reader = reader(csv);
+        List<List<String>> records = new ArrayList<>();
+        while (reader.next()) {
+            records.add(fields(reader));
+        }
+        return records;
+    }
+
+    private static List<List<String>> readInParallel(String csv, int threads, int maxChunkBytes) {
+        List<List<String>> records = new ArrayList<>();
+        ParallelCsvParser.parse(reader(csv), threads, ParallelCsvParser.Order.ORDERED,
+                ParallelCsvParserTest::fields, records::add, maxChunkBytes);
+        return records;
+    }
+
+    private static List<String> fields(MappedCsvReader reader) {
+        String[] fields = new String[reader.fieldCount()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = reader.getString(i);
+        }
+        return Arrays.asList(fields);
+    }
+
+    private static MappedCsvReader reader(String csv) {
+        return MappedCsvReader.over(ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)), 0);
+    }
+}